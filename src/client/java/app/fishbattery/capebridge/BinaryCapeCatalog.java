@@ -0,0 +1,200 @@
+package app.fishbattery.capebridge;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.RandomAccess;
+
+// Compact binary catalog for launchers that ship very large cape libraries. The file is mapped
+// read-only and entries are decoded on access, so a catalog with tens of thousands of capes costs
+// a mapping instead of a String and a CapeOption per line. Layout (big-endian ints):
+//
+//   header   magic "FBC3", entry count, string pool offset, string pool length
+//   entries  count x 7 x (pool offset, byte length): id, name, tier, path, url, frameMs, signature
+//   id index count x entry number, sorted by id (unsigned UTF-8 byte order)
+//   pool     UTF-8 string bytes (fields are stored decoded, unlike the TSV catalog)
+//
+// "FBC2" (without the signature field) and "FBC1" (without frameMs either) files are still read.
+//
+// A mapped file stays open until the mapping is collected, which Windows treats as in use: the
+// launcher should publish a new catalog under a fresh name rather than rewrite a live one.
+final class BinaryCapeCatalog {
+  static final int MAGIC = 0x46424333; // "FBC3"
+  static final int MAGIC_V2 = 0x46424332; // "FBC2"
+  static final int MAGIC_V1 = 0x46424331; // "FBC1"
+  private static final int HEADER_BYTES = 16;
+  private static final int FIELDS = 7;
+  private static final int FIELDS_V2 = 6;
+  private static final int FIELDS_V1 = 5;
+
+  private final ByteBuffer data;
+  private final int fields;
+  private final int entryBytes;
+  private final int count;
+  private final int indexOffset;
+  private final int poolOffset;
+  private final int poolLength;
+  private final List<LauncherCapeRuntime.CapeOption> view = new EntryView();
+
+  private BinaryCapeCatalog(ByteBuffer data, int fields, int count, int poolOffset, int poolLength) {
+    this.data = data;
+    this.fields = fields;
+    this.entryBytes = fields * 8;
+    this.count = count;
+    this.indexOffset = HEADER_BYTES + count * entryBytes;
+    this.poolOffset = poolOffset;
+    this.poolLength = poolLength;
+  }
+
+  static boolean hasMagic(Path path) {
+    try (InputStream in = Files.newInputStream(path)) {
+      final byte[] head = in.readNBytes(4);
+      if (head.length != 4) return false;
+      final int magic = ByteBuffer.wrap(head).getInt();
+      return magic == MAGIC || magic == MAGIC_V2 || magic == MAGIC_V1;
+    } catch (Exception e) {
+      return false;
+    }
+  }
+
+  /** Maps {@code path}; throws when it isn't a well-formed binary catalog. */
+  static BinaryCapeCatalog open(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      final long fileSize = channel.size();
+      if (fileSize < HEADER_BYTES || fileSize > Integer.MAX_VALUE) throw new IOException("bad catalog size " + fileSize);
+      final MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0L, fileSize);
+      final int magic = mapped.getInt(0);
+      if (magic != MAGIC && magic != MAGIC_V2 && magic != MAGIC_V1) throw new IOException("not a binary cape catalog");
+      final int fields = magic == MAGIC ? FIELDS : magic == MAGIC_V2 ? FIELDS_V2 : FIELDS_V1;
+      final int count = mapped.getInt(4);
+      final int poolOffset = mapped.getInt(8);
+      final int poolLength = mapped.getInt(12);
+      final long tableEnd = HEADER_BYTES + (long) count * (fields * 8 + 4);
+      if (count < 0 || tableEnd > poolOffset || poolOffset < 0 || poolLength < 0 || (long) poolOffset + poolLength > fileSize) {
+        throw new IOException("corrupt binary cape catalog header");
+      }
+      return new BinaryCapeCatalog(mapped, fields, count, poolOffset, poolLength);
+    }
+  }
+
+  int size() {
+    return count;
+  }
+
+  /** Random-access, read-only view; each {@code get} decodes one entry. */
+  List<LauncherCapeRuntime.CapeOption> asList() {
+    return view;
+  }
+
+  // Normalized like CapeCatalog.parse, so a catalog reads the same in either format.
+  LauncherCapeRuntime.CapeOption get(int index) {
+    final int entry = HEADER_BYTES + index * entryBytes;
+    final String id = field(entry, 0).trim();
+    final String name = field(entry, 1);
+    final String tier = field(entry, 2).toLowerCase(Locale.ROOT);
+    final int frameMillis = fields > FIELDS_V1 ? CapeCatalog.parseFrameMillis(field(entry, 5)) : 0;
+    final String signature = fields > FIELDS_V2 ? field(entry, 6) : "";
+    return new LauncherCapeRuntime.CapeOption(id, name.trim().isEmpty() ? id : name, tier, field(entry, 3), field(entry, 4), frameMillis, signature);
+  }
+
+  /** Binary search over the id index, comparing encoded bytes; only the hit is decoded. */
+  LauncherCapeRuntime.CapeOption find(String id) {
+    if (id == null) return null;
+    final byte[] key = id.getBytes(StandardCharsets.UTF_8);
+    int low = 0;
+    int high = count - 1;
+    while (low <= high) {
+      final int mid = (low + high) >>> 1;
+      final int index = data.getInt(indexOffset + mid * 4);
+      if (index < 0 || index >= count) return null;
+      final int cmp = compareField(HEADER_BYTES + index * entryBytes, key);
+      if (cmp < 0) low = mid + 1;
+      else if (cmp > 0) high = mid - 1;
+      else return get(index);
+    }
+    return null;
+  }
+
+  private String field(int entry, int field) {
+    final int offset = data.getInt(entry + field * 8);
+    final int length = data.getInt(entry + field * 8 + 4);
+    if (!inPool(offset, length)) return "";
+    final byte[] bytes = new byte[length];
+    data.get(poolOffset + offset, bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private int compareField(int entry, byte[] key) {
+    final int offset = data.getInt(entry);
+    final int length = data.getInt(entry + 4);
+    if (!inPool(offset, length)) return -1;
+    final int base = poolOffset + offset;
+    final int shared = Math.min(length, key.length);
+    for (int i = 0; i < shared; i++) {
+      final int cmp = Integer.compare(data.get(base + i) & 0xFF, key[i] & 0xFF);
+      if (cmp != 0) return cmp;
+    }
+    return Integer.compare(length, key.length);
+  }
+
+  private boolean inPool(int offset, int length) {
+    return offset >= 0 && length >= 0 && (long) offset + length <= poolLength;
+  }
+
+  /** Writes {@code options} in this format, atomically replacing {@code path}. */
+  static void write(Path path, List<LauncherCapeRuntime.CapeOption> options) throws IOException {
+    final int count = options.size();
+    final byte[][] strings = new byte[count * FIELDS][];
+    int poolLength = 0;
+    for (int i = 0; i < count; i++) {
+      final LauncherCapeRuntime.CapeOption option = options.get(i);
+      final String frameMillis = option.frameMillis > 0 ? Integer.toString(option.frameMillis) : "";
+      // Ids are stored trimmed so the byte-ordered index agrees with what get() returns.
+      final String[] fields = { option.id.trim(), option.name, option.tier.toLowerCase(Locale.ROOT), option.fullPath, option.cloudUrl, frameMillis, option.signature };
+      for (int f = 0; f < FIELDS; f++) {
+        strings[i * FIELDS + f] = fields[f].getBytes(StandardCharsets.UTF_8);
+        poolLength += strings[i * FIELDS + f].length;
+      }
+    }
+
+    final Integer[] order = new Integer[count];
+    for (int i = 0; i < count; i++) order[i] = i;
+    Arrays.sort(order, (a, b) -> Arrays.compareUnsigned(strings[a * FIELDS], strings[b * FIELDS]));
+
+    final int poolOffset = HEADER_BYTES + count * (FIELDS * 8 + 4);
+    final ByteBuffer out = ByteBuffer.allocate(poolOffset + poolLength);
+    out.putInt(MAGIC).putInt(count).putInt(poolOffset).putInt(poolLength);
+    int cursor = 0;
+    for (byte[] s : strings) {
+      out.putInt(cursor).putInt(s.length);
+      cursor += s.length;
+    }
+    for (Integer index : order) out.putInt(index);
+    for (byte[] s : strings) out.put(s);
+
+    CapeDiskCache.writeAtomically(path, out.array());
+  }
+
+  private final class EntryView extends AbstractList<LauncherCapeRuntime.CapeOption> implements RandomAccess {
+    @Override
+    public LauncherCapeRuntime.CapeOption get(int index) {
+      if (index < 0 || index >= count) throw new IndexOutOfBoundsException("index " + index + ", size " + count);
+      return BinaryCapeCatalog.this.get(index);
+    }
+
+    @Override
+    public int size() {
+      return count;
+    }
+  }
+}
@@ -0,0 +1,161 @@
+package app.fishbattery.capebridge;
+
+import com.mojang.blaze3d.platform.NativeImage;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.atomic.LongAdder;
+
+// Animated cape: a vertical strip of 2:1 frames (the 64x32 cape layout, or an HD multiple) whose
+// catalog entry carries a frame time. The strip is cut into per-frame NativeImages once, when it
+// is decoded; the registered DynamicTexture is a single frame, and a frame change copies the next
+// frame into the texture's own image and re-uploads that one frame. Advanced from the hooks that
+// hand the texture out, so only capes that are actually drawn upload, at most once per change.
+// Render thread only, like the texture it writes to.
+final class CapeAnimation {
+  private static final String[] COPY_FROM_NAMES = { "copyFrom", "method_4317" };
+  private static final String[] UPLOAD_NAMES = { "upload", "method_4524" };
+  private static final MethodHandle COPY_FROM = findCopyFrom();
+  private static final ClassValue<MethodHandle> UPLOADERS = new ClassValue<MethodHandle>() {
+    @Override
+    protected MethodHandle computeValue(Class<?> type) {
+      return findUpload(type);
+    }
+  };
+  private static final LongAdder FRAME_UPLOADS = CapeMetrics.counter("animation.frameUploads");
+  private static final CapeMetrics.Histogram FRAME_UPLOAD_LATENCY = CapeMetrics.histogram("pipeline.frameUpload");
+
+  /** The image to register; owned by the texture once registered. */
+  final NativeImage target;
+  private final NativeImage[] frames;
+  private final long frameNanos;
+  private final long startNanos;
+  private long nextChangeNanos;
+  private int shown = 0;
+  private Object texture = null;
+  private MethodHandle upload = null;
+  private boolean closed = false;
+
+  private CapeAnimation(NativeImage target, NativeImage[] frames, int frameMillis) {
+    this.target = target;
+    this.frames = frames;
+    this.frameNanos = frameMillis * 1_000_000L;
+    this.startNanos = System.nanoTime();
+    this.nextChangeNanos = startNanos + frameNanos;
+  }
+
+  /**
+   * Cuts {@code strip} into frames with {@code region} (NativeImage's sub-rect resize, called as
+   * (source, x, y, w, h, target)). Returns {@code null} when the image is a single frame or can't
+   * be cut; {@code strip} itself is left to the caller either way.
+   */
+  static CapeAnimation cut(NativeImage strip, int frameMillis, MethodHandle region) {
+    if (frameMillis <= 0 || region == null || COPY_FROM == null) return null;
+    final int width = strip.getWidth();
+    final int frameHeight = width / 2;
+    if (frameHeight <= 0 || strip.getHeight() % frameHeight != 0) return null;
+    final int count = strip.getHeight() / frameHeight;
+    if (count < 2) return null;
+
+    final NativeImage[] frames = new NativeImage[count];
+    NativeImage target = null;
+    try {
+      for (int i = 0; i < count; i++) {
+        frames[i] = new NativeImage(width, frameHeight, false);
+        region.invokeExact((Object) strip, (Object) 0, (Object) (i * frameHeight), (Object) width, (Object) frameHeight, (Object) frames[i]);
+      }
+      target = new NativeImage(width, frameHeight, false);
+      COPY_FROM.invokeExact((Object) frames[0], (Object) target);
+      return new CapeAnimation(target, frames, frameMillis);
+    } catch (Throwable t) {
+      CapeLog.warn("animation.cutFailed", "could not cut animated cape into frames", "frames", count, "error", t);
+      for (NativeImage frame : frames) {
+        if (frame != null) frame.close();
+      }
+      if (target != null) target.close();
+      return null;
+    }
+  }
+
+  int frameCount() {
+    return frames.length;
+  }
+
+  /** Binds to the registered texture; false (nothing to animate with) when it has no upload method. */
+  boolean attach(Object registeredTexture) {
+    if (registeredTexture == null) return false;
+    final MethodHandle handle = UPLOADERS.get(registeredTexture.getClass());
+    if (handle == null) {
+      CapeLog.warn("animation.noUpload", "no upload method on cape texture; showing the first frame",
+        "texture", registeredTexture.getClass().getName());
+      return false;
+    }
+    texture = registeredTexture;
+    upload = handle;
+    return true;
+  }
+
+  /** Shows the frame due at {@code now}; a no-op until the current one has run its time. */
+  void advance(long now) {
+    if (closed || now - nextChangeNanos < 0L) return;
+    final long elapsed = now - startNanos;
+    final int frame = (int) ((elapsed / frameNanos) % frames.length);
+    nextChangeNanos = startNanos + (elapsed / frameNanos + 1L) * frameNanos;
+    if (frame == shown) return;
+    shown = frame;
+    final long started = System.nanoTime();
+    try {
+      COPY_FROM.invokeExact((Object) frames[frame], (Object) target);
+      upload.invokeExact(texture);
+      FRAME_UPLOADS.increment();
+      FRAME_UPLOAD_LATENCY.since(started);
+    } catch (Throwable t) {
+      // Leave whatever frame made it up; one failure means the texture is gone or unusable.
+      CapeLog.warn("animation.uploadFailed", "animated cape upload failed; animation stopped", "error", t);
+      close();
+    }
+  }
+
+  /** Frees the frames; the target belongs to the registered texture and is released with it. */
+  void close() {
+    if (closed) return;
+    closed = true;
+    for (NativeImage frame : frames) frame.close();
+    texture = null;
+  }
+
+  // target.copyFrom(source), called as (source, target). Same-size memcpy on every version.
+  private static MethodHandle findCopyFrom() {
+    for (String name : COPY_FROM_NAMES) {
+      for (Method m : NativeImage.class.getMethods()) {
+        if (!m.getName().equals(name) || Modifier.isStatic(m.getModifiers())) continue;
+        if (m.getParameterCount() != 1 || m.getParameterTypes()[0] != NativeImage.class) continue;
+        try {
+          final MethodHandle handle = MethodHandles.lookup().unreflect(m)
+            .asType(MethodType.methodType(void.class, Object.class, Object.class));
+          return MethodHandles.permuteArguments(handle, handle.type(), 1, 0);
+        } catch (Throwable ignored) {}
+      }
+    }
+    return null;
+  }
+
+  // DynamicTexture.upload(): pushes its NativeImage to the GPU texture it already owns.
+  private static MethodHandle findUpload(Class<?> textureClass) {
+    for (String name : UPLOAD_NAMES) {
+      for (Class<?> c = textureClass; c != null && c != Object.class; c = c.getSuperclass()) {
+        for (Method m : c.getDeclaredMethods()) {
+          if (!m.getName().equals(name) || Modifier.isStatic(m.getModifiers()) || m.getParameterCount() != 0) continue;
+          try {
+            m.setAccessible(true);
+            return MethodHandles.lookup().unreflect(m).asType(MethodType.methodType(void.class, Object.class));
+          } catch (Throwable ignored) {}
+        }
+      }
+    }
+    return null;
+  }
+}
@@ -0,0 +1,148 @@
+package app.fishbattery.capebridge;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Immutable parsed snapshot of the launcher cape catalog (cape<TAB>id<TAB>name<TAB>tier<TAB>path<TAB>url,
+// URL-encoded fields, plus optional <TAB>frameMs for animated strips and <TAB>base64 signature) with an id index. A snapshot remembers the size and mtime it was read at, so
+// reloads after a watcher event or recheck only re-parse when the file actually changed.
+// Files starting with the BinaryCapeCatalog magic are mapped instead of parsed; `options` is then a
+// lazy view over the mapping.
+final class CapeCatalog {
+  static final CapeCatalog EMPTY = new CapeCatalog(null, -1L, -1L, Collections.emptyList());
+
+  final Path path;
+  final long size;
+  final long modifiedMillis;
+  final List<LauncherCapeRuntime.CapeOption> options;
+  private final Map<String, LauncherCapeRuntime.CapeOption> byId;
+  private final BinaryCapeCatalog binary;
+  // Built on first request, on the search worker; null until it is ready.
+  private volatile CapeSearchIndex searchIndex = null;
+  private final AtomicBoolean searchIndexRequested = new AtomicBoolean(false);
+
+  private CapeCatalog(Path path, long size, long modifiedMillis, List<LauncherCapeRuntime.CapeOption> options) {
+    this.path = path;
+    this.size = size;
+    this.modifiedMillis = modifiedMillis;
+    this.options = options;
+    final Map<String, LauncherCapeRuntime.CapeOption> index = new HashMap<>(options.size() * 2);
+    // First entry wins, like the linear scan this replaces.
+    for (LauncherCapeRuntime.CapeOption option : options) index.putIfAbsent(option.id, option);
+    this.byId = index;
+    this.binary = null;
+  }
+
+  private CapeCatalog(Path path, long size, long modifiedMillis, BinaryCapeCatalog binary) {
+    this.path = path;
+    this.size = size;
+    this.modifiedMillis = modifiedMillis;
+    this.options = binary.asList();
+    this.byId = Collections.emptyMap();
+    this.binary = binary;
+  }
+
+  LauncherCapeRuntime.CapeOption find(String id) {
+    if (id == null) return null;
+    return binary != null ? binary.find(id) : byId.get(id);
+  }
+
+  /** The filter index for this snapshot, or {@code null} while it is still being built (first call starts it). */
+  CapeSearchIndex searchIndex() {
+    final CapeSearchIndex index = searchIndex;
+    if (index != null || !searchIndexRequested.compareAndSet(false, true)) return index;
+    try {
+      CapeSearchIndex.BUILDER.execute(() -> {
+        try {
+          searchIndex = CapeSearchIndex.build(options);
+        } catch (Exception e) {
+          CapeLog.warn("catalog.indexFailed", "failed to build cape search index", "error", e.getMessage());
+        }
+      });
+    } catch (Exception e) {
+      searchIndexRequested.set(false);
+    }
+    return null;
+  }
+
+  /**
+   * Returns the catalog at {@code path}: {@code previous} itself when it was read from the same
+   * file with the same size and mtime, otherwise a fresh parse. A missing file reads as empty.
+   */
+  static CapeCatalog load(Path path, CapeCatalog previous) {
+    final BasicFileAttributes attributes;
+    try {
+      attributes = Files.readAttributes(path, BasicFileAttributes.class);
+    } catch (Exception e) {
+      return EMPTY;
+    }
+    if (!attributes.isRegularFile()) return EMPTY;
+    final long size = attributes.size();
+    final long modified = attributes.lastModifiedTime().toMillis();
+    if (previous != null && path.equals(previous.path) && previous.size == size && previous.modifiedMillis == modified) {
+      return previous;
+    }
+
+    if (BinaryCapeCatalog.hasMagic(path)) {
+      try {
+        return new CapeCatalog(path, size, modified, BinaryCapeCatalog.open(path));
+      } catch (Exception e) {
+        CapeLog.warn("catalog.unreadable", "unreadable binary cape catalog", "path", path, "error", e.getMessage());
+        return new CapeCatalog(path, size, modified, Collections.emptyList());
+      }
+    }
+
+    List<String> lines = Collections.emptyList();
+    try {
+      lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+    } catch (Exception ignored) {}
+    return new CapeCatalog(path, size, modified, parse(lines));
+  }
+
+  static List<LauncherCapeRuntime.CapeOption> parse(List<String> lines) {
+    final List<LauncherCapeRuntime.CapeOption> out = new ArrayList<>();
+    for (String rawLine : lines) {
+      // Only strip the front: a trailing empty url field is still a field.
+      final String line = String.valueOf(rawLine).stripLeading();
+      if (!line.startsWith("cape\t")) continue;
+      final String[] parts = line.split("\t", -1);
+      if (parts.length < 6) continue;
+      final String id = decodeField(parts[1]).trim();
+      if (id.isEmpty()) continue;
+      final String name = decodeField(parts[2]);
+      final String tier = decodeField(parts[3]).toLowerCase(Locale.ROOT);
+      final int frameMillis = parts.length > 6 ? parseFrameMillis(parts[6]) : 0;
+      final String signature = parts.length > 7 ? decodeField(parts[7]) : "";
+      out.add(new LauncherCapeRuntime.CapeOption(id, name.trim().isEmpty() ? id : name, tier, decodeField(parts[4]), decodeField(parts[5]), frameMillis, signature));
+    }
+    return Collections.unmodifiableList(out);
+  }
+
+  // Anything that isn't a positive frame time leaves the cape still.
+  static int parseFrameMillis(String value) {
+    try {
+      final String raw = String.valueOf(value).trim();
+      return raw.isEmpty() ? 0 : Math.max(0, Integer.parseInt(raw));
+    } catch (NumberFormatException e) {
+      return 0;
+    }
+  }
+
+  // Most fields are plain ids/paths; only run the decoder when there is something to decode.
+  static String decodeField(String value) {
+    final String raw = String.valueOf(value);
+    if (raw.indexOf('%') < 0 && raw.indexOf('+') < 0) return raw;
+    try { return URLDecoder.decode(raw, StandardCharsets.UTF_8); }
+    catch (Exception ignored) { return raw; }
+  }
+}
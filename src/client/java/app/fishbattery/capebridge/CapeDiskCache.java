@@ -0,0 +1,317 @@
+package app.fishbattery.capebridge;
+
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+// Persistent cape cache under the game directory (.fishbattery/cape-cache by default).
+// Objects are stored content-addressed as objects/<sha256>.png and indexed by source url in
+// index.tsv, together with the validators needed for conditional revalidation. Every file is
+// written through a temp file + atomic move, objects are re-hashed on read so a truncated or
+// tampered file is dropped instead of decoded, and the total size is capped with LRU eviction.
+public final class CapeDiskCache {
+  private static final String CACHE_DIR_PROPERTY = "fishbattery.launcherCape.cacheDir";
+  private static final String CACHE_MAX_BYTES_PROPERTY = "fishbattery.launcherCape.cacheMaxBytes";
+  private static final long DEFAULT_MAX_BYTES = 64L * 1024L * 1024L;
+  private static final String INDEX_FILE = "index.tsv";
+  private static final String OBJECTS_DIR = "objects";
+  private static final LongAdder HITS = CapeMetrics.counter("cache.disk.hit");
+  private static final LongAdder MISSES = CapeMetrics.counter("cache.disk.miss");
+
+  private final Path root;
+  private final Path objectsDir;
+  private final long maxBytes;
+  // sha256 -> object size, in access order (eldest first) for LRU eviction.
+  private final LinkedHashMap<String, Long> objects = new LinkedHashMap<>(16, 0.75f, true);
+  private final Map<String, UrlEntry> urls = new HashMap<>();
+  private final ExecutorService io = Executors.newSingleThreadExecutor(CapeHttpFetcher.daemonThreads("fishbattery-cape-cache"));
+  private final AtomicBoolean indexSaveQueued = new AtomicBoolean(false);
+  private long totalBytes = 0L;
+
+  CapeDiskCache(Path root, long maxBytes) throws IOException {
+    this.root = root;
+    this.objectsDir = root.resolve(OBJECTS_DIR);
+    this.maxBytes = Math.max(1L, maxBytes);
+    Files.createDirectories(objectsDir);
+    loadIndex();
+  }
+
+  /** Opens the cache configured by launcher props, or returns {@code null} when the directory is unusable. */
+  public static CapeDiskCache openDefault() {
+    final String rawDir = String.valueOf(System.getProperty(CACHE_DIR_PROPERTY, "")).trim();
+    long maxBytes = DEFAULT_MAX_BYTES;
+    try {
+      final String rawMax = String.valueOf(System.getProperty(CACHE_MAX_BYTES_PROPERTY, "")).trim();
+      if (!rawMax.isEmpty()) maxBytes = Long.parseLong(rawMax);
+    } catch (NumberFormatException ignored) {}
+    try {
+      final Path dir = rawDir.isEmpty() ? Path.of(".fishbattery", "cape-cache") : Path.of(rawDir);
+      return new CapeDiskCache(dir, maxBytes);
+    } catch (Exception e) {
+      CapeLog.warn("diskCache.disabled", "cape disk cache disabled", "error", e);
+      return null;
+    }
+  }
+
+  /** Returns the verified cached body for {@code url}, or {@code null} on a miss or a corrupt object. */
+  public synchronized Entry get(String url) {
+    final UrlEntry entry = urls.get(url);
+    final byte[] bytes = entry == null ? null : readVerified(entry.sha256);
+    if (bytes == null) {
+      MISSES.increment();
+      return null;
+    }
+    HITS.increment();
+    queueIndexSave();
+    return new Entry(bytes, entry.sha256, entry.etag, entry.lastModified);
+  }
+
+  /** Returns the verified object with the given content hash, regardless of which url produced it. */
+  public synchronized byte[] getByHash(String sha256) {
+    if (sha256 == null || !objects.containsKey(sha256)) return null;
+    return readVerified(sha256);
+  }
+
+  /** Stores {@code bytes} for {@code url} and returns its content hash. */
+  public synchronized String put(String url, byte[] bytes, String etag, String lastModified) {
+    if (bytes == null || bytes.length == 0) return null;
+    final String sha256 = sha256Hex(bytes);
+    if (!objects.containsKey(sha256) || !Files.isRegularFile(objectPath(sha256))) {
+      try {
+        writeAtomically(objectPath(sha256), bytes);
+      } catch (IOException e) {
+        CapeLog.warn("diskCache.writeFailed", "failed to cache cape", "sha256", sha256, "error", e.getMessage());
+        return sha256;
+      }
+      final Long previous = objects.put(sha256, (long) bytes.length);
+      if (previous != null) totalBytes -= previous;
+      totalBytes += bytes.length;
+    } else {
+      objects.get(sha256);
+    }
+    if (url != null && !url.isEmpty()) {
+      urls.put(url, new UrlEntry(sha256, nullToEmpty(etag), nullToEmpty(lastModified)));
+    }
+    evictOverCap(sha256);
+    queueIndexSave();
+    return sha256;
+  }
+
+  /** Marks a 304 revalidation: the object stays, the access time moves. */
+  public synchronized void touch(String url) {
+    final UrlEntry entry = urls.get(url);
+    if (entry == null) return;
+    objects.get(entry.sha256);
+    queueIndexSave();
+  }
+
+  private byte[] readVerified(String sha256) {
+    final Path path = objectPath(sha256);
+    try {
+      final byte[] bytes = Files.readAllBytes(path);
+      if (sha256.equals(sha256Hex(bytes))) {
+        objects.get(sha256);
+        return bytes;
+      }
+      CapeLog.warn("diskCache.corrupt", "dropping corrupt cached cape", "sha256", sha256);
+    } catch (IOException ignored) {}
+    dropObject(sha256);
+    queueIndexSave();
+    return null;
+  }
+
+  private void evictOverCap(String keep) {
+    final Iterator<Map.Entry<String, Long>> it = objects.entrySet().iterator();
+    while (totalBytes > maxBytes && it.hasNext()) {
+      final Map.Entry<String, Long> eldest = it.next();
+      if (eldest.getKey().equals(keep)) continue;
+      it.remove();
+      totalBytes -= eldest.getValue();
+      deleteQuietly(objectPath(eldest.getKey()));
+      urls.values().removeIf((e) -> e.sha256.equals(eldest.getKey()));
+    }
+  }
+
+  private void dropObject(String sha256) {
+    final Long size = objects.remove(sha256);
+    if (size != null) totalBytes -= size;
+    deleteQuietly(objectPath(sha256));
+    urls.values().removeIf((e) -> e.sha256.equals(sha256));
+  }
+
+  private Path objectPath(String sha256) {
+    return objectsDir.resolve(sha256 + ".png");
+  }
+
+  // -------------------------
+  // Index persistence
+  // -------------------------
+
+  private void loadIndex() throws IOException {
+    // Temp files only survive a crash mid-write; they are never valid entries.
+    for (Path dir : new Path[] { root, objectsDir }) {
+      try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*.tmp")) {
+        for (Path leftover : stream) deleteQuietly(leftover);
+      }
+    }
+    final Path indexPath = root.resolve(INDEX_FILE);
+    if (!Files.isRegularFile(indexPath)) return;
+    for (String rawLine : Files.readAllLines(indexPath, StandardCharsets.UTF_8)) {
+      final String[] parts = String.valueOf(rawLine).split("\t", -1);
+      if (parts.length >= 2 && "object".equals(parts[0])) {
+        // Objects are listed eldest first, so insertion order restores the LRU order.
+        final String sha256 = parts[1];
+        if (!isSha256Hex(sha256)) continue;
+        final Path path = objectPath(sha256);
+        if (!Files.isRegularFile(path)) continue;
+        final long size = Files.size(path);
+        objects.put(sha256, size);
+        totalBytes += size;
+      } else if (parts.length >= 5 && "url".equals(parts[0])) {
+        if (isSha256Hex(parts[2])) urls.put(decode(parts[1]), new UrlEntry(parts[2], decode(parts[3]), decode(parts[4])));
+      }
+    }
+    urls.values().removeIf((e) -> !objects.containsKey(e.sha256));
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(objectsDir, "*.png")) {
+      for (Path object : stream) {
+        final String name = object.getFileName().toString();
+        if (!objects.containsKey(name.substring(0, name.length() - ".png".length()))) deleteQuietly(object);
+      }
+    }
+  }
+
+  private void queueIndexSave() {
+    if (!indexSaveQueued.compareAndSet(false, true)) return;
+    try {
+      io.execute(() -> {
+        indexSaveQueued.set(false);
+        saveIndex();
+      });
+    } catch (Exception e) {
+      indexSaveQueued.set(false);
+    }
+  }
+
+  private void saveIndex() {
+    final List<String> lines = new ArrayList<>();
+    synchronized (this) {
+      lines.add("# fishbattery cape cache index");
+      for (String sha256 : objects.keySet()) lines.add("object\t" + sha256);
+      for (Map.Entry<String, UrlEntry> e : urls.entrySet()) {
+        final UrlEntry value = e.getValue();
+        lines.add("url\t" + encode(e.getKey()) + "\t" + value.sha256 + "\t" + encode(value.etag) + "\t" + encode(value.lastModified));
+      }
+    }
+    try {
+      writeAtomically(root.resolve(INDEX_FILE), String.join("\n", lines).concat("\n").getBytes(StandardCharsets.UTF_8));
+    } catch (IOException e) {
+      CapeLog.warn("diskCache.indexFailed", "failed to write cape cache index", "error", e.getMessage());
+    }
+  }
+
+  // -------------------------
+  // Helpers
+  // -------------------------
+
+  static void writeAtomically(Path target, byte[] bytes) throws IOException {
+    final Path parent = target.toAbsolutePath().getParent();
+    if (parent != null) Files.createDirectories(parent);
+    final Path tmp = Files.createTempFile(parent, target.getFileName().toString(), ".tmp");
+    try {
+      Files.write(tmp, bytes);
+      try {
+        Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } finally {
+      deleteQuietly(tmp);
+    }
+  }
+
+  static String sha256Hex(byte[] bytes) {
+    try {
+      final byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+      final StringBuilder sb = new StringBuilder(digest.length * 2);
+      for (byte b : digest) {
+        sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+      }
+      return sb.toString();
+    } catch (Exception e) {
+      throw new IllegalStateException("SHA-256 unavailable", e);
+    }
+  }
+
+  private static boolean isSha256Hex(String value) {
+    if (value == null || value.length() != 64) return false;
+    for (int i = 0; i < value.length(); i++) {
+      if (Character.digit(value.charAt(i), 16) < 0) return false;
+    }
+    return true;
+  }
+
+  private static void deleteQuietly(Path path) {
+    try {
+      Files.deleteIfExists(path);
+    } catch (Exception ignored) {}
+  }
+
+  private static String encode(String value) {
+    return URLEncoder.encode(nullToEmpty(value), StandardCharsets.UTF_8);
+  }
+
+  private static String decode(String value) {
+    try {
+      return URLDecoder.decode(String.valueOf(value), StandardCharsets.UTF_8);
+    } catch (Exception ignored) {
+      return String.valueOf(value);
+    }
+  }
+
+  private static String nullToEmpty(String value) {
+    return value == null ? "" : value;
+  }
+
+  public static final class Entry {
+    public final byte[] bytes;
+    public final String sha256;
+    public final String etag;
+    public final String lastModified;
+
+    Entry(byte[] bytes, String sha256, String etag, String lastModified) {
+      this.bytes = bytes;
+      this.sha256 = sha256;
+      this.etag = etag;
+      this.lastModified = lastModified;
+    }
+  }
+
+  private static final class UrlEntry {
+    final String sha256;
+    final String etag;
+    final String lastModified;
+
+    UrlEntry(String sha256, String etag, String lastModified) {
+      this.sha256 = sha256;
+      this.etag = etag;
+      this.lastModified = lastModified;
+    }
+  }
+}
@@ -0,0 +1,202 @@
+package app.fishbattery.capebridge;
+
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+// Single background watcher for the files the bridge depends on (cape + .sig sidecar, catalog,
+// meta, player cape table). WatchService only watches directories, so we register each parent
+// directory once and map events back to the files of interest. Bursts (editors, atomic
+// replace = delete + create) are debounced into one notification per topic. A watched directory
+// that is deleted invalidates its key; the watcher thread then re-registers it once it exists
+// again, polling once a second meanwhile, and notifies its topics both times.
+public final class CapeFileWatcher {
+  private static final long DEBOUNCE_MILLIS = 150L;
+  private static final long LOST_DIRECTORY_RETRY_MILLIS = 1000L;
+
+  public enum Topic { CAPE, CATALOG, META, PLAYERS }
+
+  private final WatchService service;
+  private final Map<Topic, Set<Path>> watchedFiles = new EnumMap<>(Topic.class);
+  private final Map<Path, WatchKey> directoryKeys = new HashMap<>();
+  // Needed directories whose key went invalid and that couldn't be re-registered yet.
+  private final Set<Path> lostDirectories = new HashSet<>();
+  private final Map<Topic, List<Runnable>> listeners = new EnumMap<>(Topic.class);
+
+  private CapeFileWatcher(WatchService service) {
+    this.service = service;
+    for (Topic topic : Topic.values()) {
+      watchedFiles.put(topic, Collections.emptySet());
+      listeners.put(topic, new CopyOnWriteArrayList<>());
+    }
+  }
+
+  /** Starts the watcher thread. Without a usable WatchService every {@link #watch} call reports {@code false}. */
+  public static CapeFileWatcher start() {
+    WatchService service = null;
+    try {
+      service = FileSystems.getDefault().newWatchService();
+    } catch (Exception e) {
+      CapeLog.warn("watcher.unavailable", "file watching unavailable", "error", e);
+    }
+    final CapeFileWatcher watcher = new CapeFileWatcher(service);
+    if (service != null) {
+      final Thread thread = new Thread(watcher::run, "fishbattery-cape-watcher");
+      thread.setDaemon(true);
+      thread.start();
+    }
+    return watcher;
+  }
+
+  public void addListener(Topic topic, Runnable listener) {
+    if (listener != null) listeners.get(topic).add(listener);
+  }
+
+  /**
+   * Replaces the set of files watched for {@code topic}. Returns {@code true} when every file's
+   * directory is being watched, i.e. callers can rely on notifications instead of re-checking.
+   */
+  public synchronized boolean watch(Topic topic, Path... files) {
+    final Set<Path> next = new HashSet<>();
+    boolean allWatched = service != null;
+    for (Path file : files) {
+      if (file == null) continue;
+      final Path normalized = file.toAbsolutePath().normalize();
+      next.add(normalized);
+      if (service != null && !registerDirectory(normalized.getParent())) allWatched = false;
+    }
+    watchedFiles.put(topic, Collections.unmodifiableSet(next));
+    releaseUnusedDirectories();
+    return allWatched;
+  }
+
+  private boolean registerDirectory(Path dir) {
+    if (dir == null) return false;
+    final WatchKey existing = directoryKeys.get(dir);
+    if (existing != null && existing.isValid()) return true;
+    try {
+      final WatchKey key = dir.register(
+        service,
+        StandardWatchEventKinds.ENTRY_CREATE,
+        StandardWatchEventKinds.ENTRY_MODIFY,
+        StandardWatchEventKinds.ENTRY_DELETE
+      );
+      directoryKeys.put(dir, key);
+      lostDirectories.remove(dir);
+      return true;
+    } catch (Exception e) {
+      return false;
+    }
+  }
+
+  private void releaseUnusedDirectories() {
+    final Set<Path> needed = neededDirectories();
+    lostDirectories.retainAll(needed);
+    directoryKeys.entrySet().removeIf((e) -> {
+      if (needed.contains(e.getKey())) return false;
+      e.getValue().cancel();
+      return true;
+    });
+  }
+
+  private Set<Path> neededDirectories() {
+    final Set<Path> needed = new HashSet<>();
+    for (Set<Path> files : watchedFiles.values()) {
+      for (Path file : files) needed.add(file.getParent());
+    }
+    return needed;
+  }
+
+  private void run() {
+    try {
+      while (true) {
+        final Set<Topic> changed = EnumSet.noneOf(Topic.class);
+        final WatchKey first = hasLostDirectories()
+          ? service.poll(LOST_DIRECTORY_RETRY_MILLIS, TimeUnit.MILLISECONDS)
+          : service.take();
+        if (first != null) collect(first, changed);
+        retryLostDirectories(changed);
+        // Keep draining until the directory has been quiet for the debounce window.
+        WatchKey next;
+        while ((next = service.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+          collect(next, changed);
+        }
+        for (Topic topic : changed) publish(topic);
+      }
+    } catch (InterruptedException | ClosedWatchServiceException ignored) {
+      // Daemon thread: exits with the client.
+    }
+  }
+
+  private void collect(WatchKey key, Set<Topic> changed) {
+    final Path dir = (Path) key.watchable();
+    for (WatchEvent<?> event : key.pollEvents()) {
+      if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+        changed.addAll(EnumSet.allOf(Topic.class));
+        continue;
+      }
+      final Object context = event.context();
+      if (!(context instanceof Path)) continue;
+      final Path file = dir.resolve((Path) context).toAbsolutePath().normalize();
+      synchronized (this) {
+        for (Map.Entry<Topic, Set<Path>> e : watchedFiles.entrySet()) {
+          if (e.getValue().contains(file)) changed.add(e.getKey());
+        }
+      }
+    }
+    if (!key.reset()) onInvalidKey(dir, key, changed);
+  }
+
+  // The directory was deleted (or became unwatchable): its files are gone as far as listeners are
+  // concerned, and it is re-registered here or by retryLostDirectories once it exists again.
+  private synchronized void onInvalidKey(Path dir, WatchKey key, Set<Topic> changed) {
+    if (directoryKeys.get(dir) != key) return;
+    directoryKeys.remove(dir);
+    if (!neededDirectories().contains(dir)) return;
+    addTopicsIn(dir, changed);
+    if (!registerDirectory(dir)) lostDirectories.add(dir);
+  }
+
+  private synchronized boolean hasLostDirectories() {
+    return !lostDirectories.isEmpty();
+  }
+
+  private synchronized void retryLostDirectories(Set<Topic> changed) {
+    for (Path dir : new ArrayList<>(lostDirectories)) {
+      if (registerDirectory(dir)) addTopicsIn(dir, changed);
+    }
+  }
+
+  private void addTopicsIn(Path dir, Set<Topic> changed) {
+    for (Map.Entry<Topic, Set<Path>> e : watchedFiles.entrySet()) {
+      for (Path file : e.getValue()) {
+        if (dir.equals(file.getParent())) changed.add(e.getKey());
+      }
+    }
+  }
+
+  private void publish(Topic topic) {
+    for (Runnable listener : listeners.get(topic)) {
+      try {
+        listener.run();
+      } catch (Throwable t) {
+        CapeLog.warn("watcher.listenerFailed", "change listener failed", "topic", topic, "error", t);
+      }
+    }
+  }
+}
@@ -0,0 +1,353 @@
+package app.fishbattery.capebridge;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Background fetch pipeline for http(s) cape urls.
+// Render hooks only ever see the bytes of the last completed fetch; requests, revalidation
+// (ETag / If-Modified-Since) and retries all happen on daemon threads, and the runtime is told
+// to re-resolve through the update listener once new bytes are available.
+public final class CapeHttpFetcher {
+  private static final String USER_AGENT = "FishbatteryCapeBridge/1.0";
+  private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(5);
+  private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(10);
+  private static final long DEFAULT_REVALIDATE_SECONDS = 300L;
+  private static final long MIN_REVALIDATE_SECONDS = 30L;
+  private static final long FAILED_RETRY_NANOS = TimeUnit.SECONDS.toNanos(30);
+  private static final CapeMetrics.Histogram FETCH_LATENCY = CapeMetrics.histogram("pipeline.fetch");
+  private static final LongAdder NOT_MODIFIED = CapeMetrics.counter("fetch.notModified");
+  private static final LongAdder FETCH_FAILURES = CapeMetrics.counter("fetch.failed");
+
+  private final HttpClient client;
+  private final CapeDiskCache diskCache;
+  private final Runnable onUpdate;
+  private final long maxBodyBytes = CapeImageLimits.fromSystemProperties().maxBytes;
+  private final ScheduledExecutorService scheduler;
+  // Where disk cache reads run: the client's own threads, so render hooks never touch the disk.
+  private final Executor fetchExecutor;
+  private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+  // The local player's selected cape url: the only one kept fresh by revalidation. Other
+  // players' capes go through request() too, but must not take its place.
+  private volatile String selectedUrl = "";
+
+  public CapeHttpFetcher(CapeDiskCache diskCache, Runnable onUpdate) {
+    this(newDefaultClient(), diskCache, onUpdate);
+  }
+
+  private CapeHttpFetcher(HttpClient client, CapeDiskCache diskCache, Runnable onUpdate) {
+    this.client = client;
+    this.diskCache = diskCache;
+    this.onUpdate = onUpdate == null ? () -> {} : onUpdate;
+    this.scheduler = Executors.newSingleThreadScheduledExecutor(daemonThreads("fishbattery-cape-revalidate"));
+    this.fetchExecutor = client.executor().orElse(scheduler);
+  }
+
+  /**
+   * Non-blocking lookup used from render hooks. Returns the bytes of the last successful fetch
+   * (possibly stale while a revalidation runs) or {@code null} when nothing has arrived yet.
+   * The first request for a url in a session looks in the disk cache off-thread (the url counts
+   * as pending meanwhile); a hit is published like a fetch and only revalidated over the network.
+   * Otherwise a background fetch starts when the url has never been fetched or its last attempt
+   * failed long enough ago.
+   */
+  public Result request(String url) {
+    final String key = String.valueOf(url == null ? "" : url).trim();
+    if (key.isEmpty()) return null;
+    final Entry entry = entries.computeIfAbsent(key, (k) -> new Entry());
+    synchronized (entry) {
+      if (!entry.diskChecked) {
+        entry.diskChecked = true;
+        if (diskCache != null) {
+          entry.inFlight = true;
+          loadFromDisk(key, entry);
+          return null;
+        }
+      }
+      final boolean retryFailure = entry.failedAtNanos != 0L && System.nanoTime() - entry.failedAtNanos >= FAILED_RETRY_NANOS;
+      if (!entry.inFlight && (entry.bytes == null && (entry.failedAtNanos == 0L || retryFailure))) {
+        startFetch(key, entry);
+      }
+      return entry.bytes == null ? null : new Result(entry.bytes, entry.generation);
+    }
+  }
+
+  // Runs with entry.inFlight set, so request() neither starts a fetch nor reads the disk again.
+  private void loadFromDisk(String url, Entry entry) {
+    try {
+      fetchExecutor.execute(() -> {
+        CapeDiskCache.Entry cached = null;
+        try {
+          cached = diskCache.get(url);
+        } catch (Exception ignored) {}
+        synchronized (entry) {
+          entry.inFlight = false;
+          if (cached != null && entry.bytes == null) {
+            entry.bytes = cached.bytes;
+            entry.generation += 1;
+            entry.etag = cached.etag;
+            entry.lastModified = cached.lastModified;
+          }
+          // Confirms the disk copy with a conditional request, or fetches it outright.
+          startFetch(url, entry);
+        }
+        if (cached != null) onUpdate.run();
+      });
+    } catch (Exception e) {
+      entry.inFlight = false;
+      startFetch(url, entry);
+    }
+  }
+
+  /** Marks {@code url} (blank for none) as the local selection, the url revalidation keeps fresh. */
+  public void setSelectedUrl(String url) {
+    selectedUrl = String.valueOf(url == null ? "" : url).trim();
+  }
+
+  /**
+   * Bytes already known for {@code url} (this session or the disk cache) without starting a fetch.
+   * For previews, which must not pull every catalog cape.
+   */
+  public byte[] peek(String url) {
+    final String key = String.valueOf(url == null ? "" : url).trim();
+    if (key.isEmpty()) return null;
+    final Entry entry = entries.get(key);
+    if (entry != null) {
+      synchronized (entry) {
+        if (entry.bytes != null) return entry.bytes;
+      }
+    }
+    if (diskCache == null) return null;
+    final CapeDiskCache.Entry cached = diskCache.get(key);
+    return cached == null ? null : cached.bytes;
+  }
+
+  public boolean isPending(String url) {
+    final Entry entry = entries.get(String.valueOf(url == null ? "" : url).trim());
+    if (entry == null) return false;
+    synchronized (entry) {
+      return entry.inFlight;
+    }
+  }
+
+  private void startFetch(String url, Entry entry) {
+    final HttpRequest.Builder builder;
+    try {
+      builder = HttpRequest.newBuilder(URI.create(url))
+        .timeout(REQUEST_TIMEOUT)
+        .header("User-Agent", USER_AGENT)
+        .GET();
+    } catch (Exception e) {
+      entry.failedAtNanos = System.nanoTime();
+      CapeLog.warn("fetch.invalidUrl", "invalid cape url", "url", url, "error", e.getMessage());
+      return;
+    }
+    // Conditional headers only make sense when we still hold the body they describe.
+    if (entry.bytes != null) {
+      if (!entry.etag.isEmpty()) builder.header("If-None-Match", entry.etag);
+      if (!entry.lastModified.isEmpty()) builder.header("If-Modified-Since", entry.lastModified);
+    }
+
+    entry.inFlight = true;
+    final long started = System.nanoTime();
+    try {
+      client.sendAsync(builder.build(), this::boundedBody)
+        .whenComplete((response, error) -> {
+          FETCH_LATENCY.since(started);
+          onFetchComplete(url, entry, response, error);
+        });
+    } catch (Exception e) {
+      entry.inFlight = false;
+      entry.failedAtNanos = System.nanoTime();
+      CapeLog.warn("fetch.failed", "cape fetch failed", "url", url, "error", e.getMessage());
+    }
+  }
+
+  // Bodies over the image byte limit count as a failure: dropped unread when Content-Length says
+  // so, otherwise (chunked, or no length) cut off as soon as the received bytes pass the limit.
+  private HttpResponse.BodySubscriber<byte[]> boundedBody(HttpResponse.ResponseInfo info) {
+    final long length = info.headers().firstValueAsLong("Content-Length").orElse(-1L);
+    if (length > maxBodyBytes) return HttpResponse.BodySubscribers.replacing(null);
+    return new BoundedBodySubscriber(maxBodyBytes);
+  }
+
+  private void onFetchComplete(String url, Entry entry, HttpResponse<byte[]> response, Throwable error) {
+    boolean changed = false;
+    boolean hasBody;
+    boolean notModified = false;
+    byte[] store = null;
+    String storeEtag = "";
+    String storeLastModified = "";
+    long revalidateSeconds = DEFAULT_REVALIDATE_SECONDS;
+    synchronized (entry) {
+      entry.inFlight = false;
+      final int status = response == null ? -1 : response.statusCode();
+      if (error == null && status == 304 && entry.bytes != null) {
+        entry.failedAtNanos = 0L;
+        NOT_MODIFIED.increment();
+        notModified = true;
+      } else if (error == null && status >= 200 && status < 300 && response.body() != null && response.body().length > 0
+        && response.body().length <= maxBodyBytes) {
+        final byte[] body = response.body();
+        entry.etag = response.headers().firstValue("ETag").orElse("");
+        entry.lastModified = response.headers().firstValue("Last-Modified").orElse("");
+        entry.failedAtNanos = 0L;
+        // A 200 with identical content (server ignored the validators) is not an update.
+        if (entry.bytes == null || !Arrays.equals(entry.bytes, body)) {
+          entry.bytes = body;
+          entry.generation += 1;
+          changed = true;
+        }
+        store = body;
+        storeEtag = entry.etag;
+        storeLastModified = entry.lastModified;
+      } else {
+        entry.failedAtNanos = System.nanoTime();
+        FETCH_FAILURES.increment();
+        CapeLog.warn("fetch.failed", "cape fetch failed", "url", url,
+          "error", error != null ? error.getMessage()
+            : status >= 200 && status < 300 ? "empty body or over " + maxBodyBytes + " bytes" : "HTTP " + status);
+      }
+      if (response != null) revalidateSeconds = maxAgeSeconds(response);
+      hasBody = entry.bytes != null;
+    }
+
+    // Hashing and writing the disk copy happen outside the entry lock, which render hooks take.
+    if (diskCache != null) {
+      if (notModified) diskCache.touch(url);
+      if (store != null) diskCache.put(url, store, storeEtag, storeLastModified);
+    }
+    if (changed) onUpdate.run();
+    // Failures without a body are retried by request() instead, on the next resolve.
+    if (hasBody) scheduleRevalidation(url, entry, revalidateSeconds);
+  }
+
+  private void scheduleRevalidation(String url, Entry entry, long delaySeconds) {
+    try {
+      scheduler.schedule(() -> {
+        // Only the cape that is currently selected is worth keeping fresh.
+        if (!url.equals(selectedUrl)) return;
+        synchronized (entry) {
+          if (!entry.inFlight) startFetch(url, entry);
+        }
+      }, delaySeconds, TimeUnit.SECONDS);
+    } catch (Exception ignored) {}
+  }
+
+  private static long maxAgeSeconds(HttpResponse<?> response) {
+    final String cacheControl = response.headers().firstValue("Cache-Control").orElse("").toLowerCase(Locale.ROOT);
+    for (String part : cacheControl.split(",")) {
+      final String directive = part.trim();
+      if (!directive.startsWith("max-age=")) continue;
+      try {
+        return Math.max(MIN_REVALIDATE_SECONDS, Long.parseLong(directive.substring("max-age=".length()).trim()));
+      } catch (NumberFormatException ignored) {}
+    }
+    return DEFAULT_REVALIDATE_SECONDS;
+  }
+
+  private static HttpClient newDefaultClient() {
+    // HttpClient pools and keeps connections alive on its own; we only pin timeouts and threads.
+    return HttpClient.newBuilder()
+      .connectTimeout(CONNECT_TIMEOUT)
+      .followRedirects(HttpClient.Redirect.NORMAL)
+      .executor(Executors.newCachedThreadPool(daemonThreads("fishbattery-cape-http")))
+      .build();
+  }
+
+  static ThreadFactory daemonThreads(String prefix) {
+    final AtomicInteger counter = new AtomicInteger();
+    return (runnable) -> {
+      final Thread t = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+      t.setDaemon(true);
+      return t;
+    };
+  }
+
+  // Collects up to maxBytes; one byte more cancels the subscription and completes with null.
+  private static final class BoundedBodySubscriber implements HttpResponse.BodySubscriber<byte[]> {
+    private final long maxBytes;
+    private final CompletableFuture<byte[]> body = new CompletableFuture<>();
+    private final ByteArrayOutputStream received = new ByteArrayOutputStream();
+    private Flow.Subscription subscription;
+
+    BoundedBodySubscriber(long maxBytes) {
+      this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public CompletionStage<byte[]> getBody() {
+      return body;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+      this.subscription = subscription;
+      subscription.request(Long.MAX_VALUE);
+    }
+
+    @Override
+    public void onNext(List<ByteBuffer> buffers) {
+      if (body.isDone()) return;
+      for (ByteBuffer buffer : buffers) {
+        if (received.size() + (long) buffer.remaining() > maxBytes) {
+          subscription.cancel();
+          body.complete(null);
+          return;
+        }
+        final byte[] chunk = new byte[buffer.remaining()];
+        buffer.get(chunk);
+        received.write(chunk, 0, chunk.length);
+      }
+    }
+
+    @Override
+    public void onError(Throwable error) {
+      body.completeExceptionally(error);
+    }
+
+    @Override
+    public void onComplete() {
+      body.complete(received.toByteArray());
+    }
+  }
+
+  public static final class Result {
+    public final byte[] bytes;
+    public final long generation;
+
+    Result(byte[] bytes, long generation) {
+      this.bytes = bytes;
+      this.generation = generation;
+    }
+  }
+
+  private static final class Entry {
+    byte[] bytes = null;
+    long generation = 0L;
+    String etag = "";
+    String lastModified = "";
+    boolean inFlight = false;
+    boolean diskChecked = false;
+    long failedAtNanos = 0L;
+  }
+}
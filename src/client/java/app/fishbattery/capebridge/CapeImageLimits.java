@@ -0,0 +1,93 @@
+package app.fishbattery.capebridge;
+
+import java.nio.ByteBuffer;
+
+// Size limits applied to cape images before NativeImage.read ever sees them. The PNG signature
+// and IHDR chunk are parsed from the raw bytes, so an oversized or malformed image is rejected
+// without allocating its pixels. Images that pass but are wider than the upload limit are halved
+// until they fit: cape layouts are 64x32 multiples, so power-of-two steps keep the UV grid intact.
+final class CapeImageLimits {
+  static final String MAX_BYTES_PROPERTY = "fishbattery.launcherCape.maxBytes";
+  static final String MAX_DIMENSION_PROPERTY = "fishbattery.launcherCape.maxDimension";
+  static final String MAX_UPLOAD_WIDTH_PROPERTY = "fishbattery.launcherCape.maxUploadWidth";
+
+  private static final long DEFAULT_MAX_BYTES = 4L * 1024L * 1024L;
+  private static final int DEFAULT_MAX_DIMENSION = 4096;
+  private static final int DEFAULT_MAX_UPLOAD_WIDTH = 1024;
+  private static final int MIN_UPLOAD_WIDTH = 64;
+
+  private static final byte[] PNG_SIGNATURE = { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n' };
+  private static final int IHDR_TYPE = 0x49484452; // "IHDR"
+  private static final int HEADER_BYTES = 8 + 8 + 13;
+
+  final long maxBytes;
+  final int maxDimension;
+  final int maxUploadWidth;
+
+  CapeImageLimits(long maxBytes, int maxDimension, int maxUploadWidth) {
+    this.maxBytes = Math.max(HEADER_BYTES, maxBytes);
+    this.maxDimension = Math.max(MIN_UPLOAD_WIDTH, maxDimension);
+    this.maxUploadWidth = Math.max(MIN_UPLOAD_WIDTH, maxUploadWidth);
+  }
+
+  static CapeImageLimits fromSystemProperties() {
+    return new CapeImageLimits(
+      longProperty(MAX_BYTES_PROPERTY, DEFAULT_MAX_BYTES),
+      (int) longProperty(MAX_DIMENSION_PROPERTY, DEFAULT_MAX_DIMENSION),
+      (int) longProperty(MAX_UPLOAD_WIDTH_PROPERTY, DEFAULT_MAX_UPLOAD_WIDTH)
+    );
+  }
+
+  /** Returns why {@code bytes} must not be decoded, or {@code null} when they are within limits. */
+  String rejectReason(byte[] bytes) {
+    if (bytes == null || bytes.length == 0) return "no image data";
+    if (bytes.length > maxBytes) return bytes.length + " bytes exceeds the " + maxBytes + " byte limit";
+    final Header header = Header.parse(bytes);
+    if (header == null) return "not a PNG image";
+    if (header.width <= 0 || header.height <= 0) return "invalid size " + header.width + "x" + header.height;
+    if (header.width > maxDimension || header.height > maxDimension) {
+      return header.width + "x" + header.height + " exceeds the " + maxDimension + "px limit";
+    }
+    return null;
+  }
+
+  /** Upload size for a decoded image: unchanged, or halved until the width is within the upload limit. */
+  int[] uploadSize(int width, int height) {
+    int w = width;
+    int h = height;
+    while (w > maxUploadWidth && w / 2 >= MIN_UPLOAD_WIDTH && h / 2 >= 1) {
+      w /= 2;
+      h /= 2;
+    }
+    return new int[] { w, h };
+  }
+
+  private static long longProperty(String key, long fallback) {
+    try {
+      final String raw = String.valueOf(System.getProperty(key, "")).trim();
+      if (!raw.isEmpty()) return Long.parseLong(raw);
+    } catch (NumberFormatException ignored) {}
+    return fallback;
+  }
+
+  static final class Header {
+    final int width;
+    final int height;
+
+    private Header(int width, int height) {
+      this.width = width;
+      this.height = height;
+    }
+
+    // PNG requires IHDR to be the first chunk, so the size sits at a fixed offset.
+    static Header parse(byte[] bytes) {
+      if (bytes == null || bytes.length < HEADER_BYTES) return null;
+      for (int i = 0; i < PNG_SIGNATURE.length; i++) {
+        if (bytes[i] != PNG_SIGNATURE[i]) return null;
+      }
+      final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+      if (buffer.getInt(8) != 13 || buffer.getInt(12) != IHDR_TYPE) return null;
+      return new Header(buffer.getInt(16), buffer.getInt(20));
+    }
+  }
+}
@@ -0,0 +1,170 @@
+package app.fishbattery.capebridge;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Logging for code that runs on the render thread (and everything else, for one consistent
+// format). A call only checks the per-key rate limit and claims a slot in a bounded ring; a daemon
+// thread formats and prints. When the ring is full the record is dropped and counted rather than
+// waiting, and each key emits at most BURST lines per WINDOW, the next line after a quiet spell
+// carrying how many were suppressed. Lines look like
+//
+//   [fishbattery_cape_bridge] resolved cape source is null event=source.null path='' url='https://...'
+//
+// with `fields` given as alternating name/value pairs; values are only stringified on the
+// logging thread.
+public final class CapeLog {
+  private static final String PREFIX = "[fishbattery_cape_bridge] ";
+  private static final int CAPACITY = 1024;
+  private static final int MASK = CAPACITY - 1;
+  private static final int BURST = 5;
+  private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(60);
+  private static final long DRAIN_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+  private static final AtomicReferenceArray<Record> SLOTS = new AtomicReferenceArray<>(CAPACITY);
+  private static final AtomicLong TAIL = new AtomicLong();
+  // Only advanced by the draining thread (under the class lock).
+  private static volatile long head = 0L;
+  private static final Map<String, Limiter> LIMITERS = new ConcurrentHashMap<>();
+  private static final LongAdder DROPPED = CapeMetrics.counter("log.dropped");
+  private static final LongAdder SUPPRESSED = CapeMetrics.counter("log.suppressed");
+  private static long droppedReported = 0L;
+
+  static {
+    final Thread drainer = new Thread(() -> {
+      while (true) {
+        drain();
+        LockSupport.parkNanos(DRAIN_INTERVAL_NANOS);
+      }
+    }, "fishbattery-cape-log");
+    drainer.setDaemon(true);
+    drainer.start();
+    try {
+      Runtime.getRuntime().addShutdownHook(new Thread(CapeLog::drain, "fishbattery-cape-log-flush"));
+    } catch (Exception ignored) {}
+  }
+
+  private CapeLog() {}
+
+  public static void info(String key, String message, Object... fields) {
+    log(false, key, message, fields);
+  }
+
+  public static void warn(String key, String message, Object... fields) {
+    log(true, key, message, fields);
+  }
+
+  private static void log(boolean warning, String key, String message, Object[] fields) {
+    Limiter limiter = LIMITERS.get(key);
+    if (limiter == null) limiter = LIMITERS.computeIfAbsent(key, k -> new Limiter());
+    final int suppressedBefore = limiter.tryAcquire(System.nanoTime());
+    if (suppressedBefore < 0) {
+      SUPPRESSED.increment();
+      return;
+    }
+    enqueue(new Record(warning, key, message, fields, suppressedBefore));
+  }
+
+  private static void enqueue(Record record) {
+    long tail;
+    do {
+      tail = TAIL.get();
+      if (tail - head >= CAPACITY) {
+        DROPPED.increment();
+        return;
+      }
+    } while (!TAIL.compareAndSet(tail, tail + 1));
+    SLOTS.lazySet((int) (tail & MASK), record);
+  }
+
+  /** Prints everything published so far; runs on the logging thread and at shutdown. */
+  static synchronized void drain() {
+    long next = head;
+    while (true) {
+      final int slot = (int) (next & MASK);
+      final Record record = SLOTS.get(slot);
+      // Empty, or claimed by a producer that hasn't published yet: picked up next round.
+      if (record == null) break;
+      SLOTS.lazySet(slot, null);
+      head = ++next;
+      System.err.println(format(record));
+    }
+    final long dropped = DROPPED.sum();
+    if (dropped != droppedReported) {
+      System.err.println(PREFIX + "log buffer full, dropped " + (dropped - droppedReported) + " records");
+      droppedReported = dropped;
+    }
+  }
+
+  private static String format(Record record) {
+    final StringBuilder out = new StringBuilder(128).append(PREFIX);
+    if (record.warning) out.append("WARN ");
+    out.append(record.message).append(" event=").append(record.key);
+    final Object[] fields = record.fields;
+    for (int i = 0; fields != null && i + 1 < fields.length; i += 2) {
+      out.append(' ').append(fields[i]).append('=');
+      appendValue(out, fields[i + 1]);
+    }
+    if (record.suppressedBefore > 0) out.append(" suppressed=").append(record.suppressedBefore);
+    return out.toString();
+  }
+
+  private static void appendValue(StringBuilder out, Object value) {
+    String text;
+    try {
+      text = String.valueOf(value);
+    } catch (Throwable t) {
+      text = "<" + t.getClass().getSimpleName() + ">";
+    }
+    boolean plain = !text.isEmpty();
+    for (int i = 0; plain && i < text.length(); i++) {
+      final char c = text.charAt(i);
+      plain = c > ' ' && c != '\'' && c != '=';
+    }
+    if (plain) out.append(text);
+    else out.append('\'').append(text.replace("'", "\\'")).append('\'');
+  }
+
+  private static final class Limiter {
+    private long windowStartNanos = Long.MIN_VALUE;
+    private int emitted = 0;
+    private int suppressed = 0;
+
+    // Number of lines suppressed since the last emitted one, or -1 when this one is suppressed.
+    synchronized int tryAcquire(long nowNanos) {
+      if (windowStartNanos == Long.MIN_VALUE || nowNanos - windowStartNanos >= WINDOW_NANOS) {
+        windowStartNanos = nowNanos;
+        emitted = 0;
+      }
+      if (emitted >= BURST) {
+        suppressed++;
+        return -1;
+      }
+      emitted++;
+      final int before = suppressed;
+      suppressed = 0;
+      return before;
+    }
+  }
+
+  private static final class Record {
+    final boolean warning;
+    final String key;
+    final String message;
+    final Object[] fields;
+    final int suppressedBefore;
+
+    Record(boolean warning, String key, String message, Object[] fields, int suppressedBefore) {
+      this.warning = warning;
+      this.key = key;
+      this.message = message;
+      this.fields = fields;
+      this.suppressedBefore = suppressedBefore;
+    }
+  }
+}
@@ -1,16 +1,5 @@
 package app.fishbattery.capebridge;
 
-<<<<<<< HEAD
-/**
- * Minimal stub used by mixins to attach cape UI buttons.
- * We intentionally keep this minimal — the launcher UI already handles cape selection.
- */
-public final class CapeMenuBridge {
-  private CapeMenuBridge() {}
-
-  public static void tryAttachToScreen(Object screen, boolean addButton) {
-    // No-op: keep compilation happy. UI is managed by the launcher.
-=======
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
@@ -194,6 +183,5 @@ public final class CapeMenuBridge {
   private static void setAlreadyAdded(Object target, boolean value) {
     if (value) INJECTED_SCREENS.add(target);
     else INJECTED_SCREENS.remove(target);
->>>>>>> origin/main
   }
 }
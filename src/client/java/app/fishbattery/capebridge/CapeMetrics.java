@@ -0,0 +1,184 @@
+package app.fishbattery.capebridge;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Process-wide counters and latency histograms for the cape pipeline, dumped as JSON every
+// `fishbattery.launcherCape.statsIntervalSeconds` (default 60, 0 disables) to
+// `fishbattery.launcherCape.statsFile` (default .fishbattery/cape-bridge-stats.json).
+//
+// Everything is lock-free: counters are LongAdders, histograms are power-of-two nanosecond
+// buckets in an AtomicLongArray. Hot paths keep the LongAdder/Histogram they update in a static
+// final field, so recording is an increment and never a map lookup; the name registry is only
+// consulted when those fields are created and on rare paths (fallback winners).
+public final class CapeMetrics {
+  private static final String STATS_FILE_PROPERTY = "fishbattery.launcherCape.statsFile";
+  private static final String STATS_INTERVAL_PROPERTY = "fishbattery.launcherCape.statsIntervalSeconds";
+  private static final long DEFAULT_INTERVAL_SECONDS = 60L;
+
+  private static final Map<String, LongAdder> COUNTERS = new ConcurrentHashMap<>();
+  private static final Map<String, Histogram> HISTOGRAMS = new ConcurrentHashMap<>();
+  private static final long STARTED_AT_MILLIS = System.currentTimeMillis();
+  private static final AtomicBoolean STATS_FILE_STARTED = new AtomicBoolean(false);
+
+  /** One per mixin class; mixins call {@link #hook(Hook)} first thing in every injector. */
+  public enum Hook {
+    ABSTRACT_CLIENT_PLAYER_CAPE("AbstractClientPlayerEntityCapeMixin"),
+    CLIENT_AVATAR_SKIN("ClientAvatarEntitySkinMixin"),
+    GAME_MENU_BUTTON("GameMenuScreenCapeButtonMixin"),
+    PAUSE_SCREEN_BUTTON("PauseScreenCapeButtonMixin"),
+    PLAYER_INFO_CAPE("PlayerInfoCapeMixin"),
+    PLAYER_INFO_SKIN("PlayerInfoSkinMixin"),
+    PLAYER_LIST_ENTRY_CAPE("PlayerListEntryCapeMixin"),
+    PLAYER_LIST_ENTRY_SKIN("PlayerListEntrySkinMixin"),
+    SCREEN_THUMBNAILS("ScreenCapeThumbnailMixin"),
+    TITLE_SCREEN_BUTTON("TitleScreenCapeButtonMixin");
+
+    private final LongAdder invocations;
+
+    Hook(String mixin) {
+      this.invocations = counter("hook." + mixin);
+    }
+  }
+
+  private CapeMetrics() {}
+
+  public static void hook(Hook hook) {
+    hook.invocations.increment();
+  }
+
+  static LongAdder counter(String name) {
+    return COUNTERS.computeIfAbsent(name, k -> new LongAdder());
+  }
+
+  static Histogram histogram(String name) {
+    return HISTOGRAMS.computeIfAbsent(name, k -> new Histogram());
+  }
+
+  /** Records which of several reflective strategies won at {@code site}; only hit on slow paths. */
+  static void fallback(String site, String path) {
+    counter("fallback." + site + "." + path).increment();
+  }
+
+  // -------------------------
+  // Histogram
+  // -------------------------
+
+  /** Latencies in nanoseconds, bucketed by bit length (bucket i holds [2^(i-1), 2^i)). */
+  static final class Histogram {
+    private final AtomicLongArray buckets = new AtomicLongArray(64);
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0L);
+
+    void record(long nanos) {
+      final long value = Math.max(0L, nanos);
+      buckets.incrementAndGet(64 - Long.numberOfLeadingZeros(value));
+      totalNanos.add(value);
+      maxNanos.accumulate(value);
+    }
+
+    /** Records the time since {@code startNanos} (a {@link System#nanoTime()} reading). */
+    void since(long startNanos) {
+      record(System.nanoTime() - startNanos);
+    }
+
+    // Upper bound of the bucket holding the q-quantile; good to a factor of two.
+    private long quantile(long[] snapshot, long total, double q) {
+      if (total == 0L) return 0L;
+      final long rank = (long) Math.ceil(q * total);
+      long seen = 0L;
+      for (int i = 0; i < snapshot.length; i++) {
+        seen += snapshot[i];
+        if (seen >= rank) return i == 0 ? 0L : i >= 63 ? Long.MAX_VALUE : 1L << i;
+      }
+      return maxNanos.get();
+    }
+
+    private void appendJson(StringBuilder out) {
+      final long[] snapshot = new long[buckets.length()];
+      long total = 0L;
+      for (int i = 0; i < snapshot.length; i++) {
+        snapshot[i] = buckets.get(i);
+        total += snapshot[i];
+      }
+      final long sum = totalNanos.sum();
+      final long max = maxNanos.get();
+      out.append("{\"count\": ").append(total)
+        .append(", \"totalNanos\": ").append(sum)
+        .append(", \"meanNanos\": ").append(total == 0L ? 0L : sum / total)
+        .append(", \"p50Nanos\": ").append(Math.min(max, quantile(snapshot, total, 0.50)))
+        .append(", \"p90Nanos\": ").append(Math.min(max, quantile(snapshot, total, 0.90)))
+        .append(", \"p99Nanos\": ").append(Math.min(max, quantile(snapshot, total, 0.99)))
+        .append(", \"maxNanos\": ").append(max)
+        .append('}');
+    }
+  }
+
+  // -------------------------
+  // Stats file
+  // -------------------------
+
+  /** Starts the periodic stats dump (once); also written at shutdown. */
+  static void startStatsFile() {
+    if (!STATS_FILE_STARTED.compareAndSet(false, true)) return;
+    long interval = DEFAULT_INTERVAL_SECONDS;
+    try {
+      final String rawInterval = String.valueOf(System.getProperty(STATS_INTERVAL_PROPERTY, "")).trim();
+      if (!rawInterval.isEmpty()) interval = Long.parseLong(rawInterval);
+    } catch (NumberFormatException ignored) {}
+    if (interval <= 0L) return;
+
+    final Path file;
+    try {
+      final String rawFile = String.valueOf(System.getProperty(STATS_FILE_PROPERTY, "")).trim();
+      file = rawFile.isEmpty() ? Path.of(".fishbattery", "cape-bridge-stats.json") : Path.of(rawFile);
+    } catch (Exception e) {
+      CapeLog.warn("stats.disabled", "cape stats file disabled", "error", e);
+      return;
+    }
+    final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(CapeHttpFetcher.daemonThreads("fishbattery-cape-stats"));
+    writer.scheduleWithFixedDelay(() -> writeStats(file), interval, interval, TimeUnit.SECONDS);
+    try {
+      Runtime.getRuntime().addShutdownHook(new Thread(() -> writeStats(file), "fishbattery-cape-stats-flush"));
+    } catch (Exception ignored) {}
+  }
+
+  private static void writeStats(Path file) {
+    try {
+      CapeDiskCache.writeAtomically(file, toJson().getBytes(StandardCharsets.UTF_8));
+    } catch (Exception e) {
+      CapeLog.warn("stats.writeFailed", "failed to write cape stats", "file", file, "error", e.getMessage());
+    }
+  }
+
+  static String toJson() {
+    final long now = System.currentTimeMillis();
+    final StringBuilder out = new StringBuilder(2048);
+    out.append("{\n  \"writtenAt\": ").append(now)
+      .append(",\n  \"uptimeMillis\": ").append(now - STARTED_AT_MILLIS)
+      .append(",\n  \"counters\": {");
+    String separator = "\n";
+    for (Map.Entry<String, LongAdder> e : new TreeMap<>(COUNTERS).entrySet()) {
+      out.append(separator).append("    \"").append(e.getKey()).append("\": ").append(e.getValue().sum());
+      separator = ",\n";
+    }
+    out.append("\n  },\n  \"latencies\": {");
+    separator = "\n";
+    for (Map.Entry<String, Histogram> e : new TreeMap<>(HISTOGRAMS).entrySet()) {
+      out.append(separator).append("    \"").append(e.getKey()).append("\": ");
+      e.getValue().appendJson(out);
+      separator = ",\n";
+    }
+    return out.append("\n  }\n}\n").toString();
+  }
+}
@@ -0,0 +1,157 @@
+package app.fishbattery.capebridge;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Search index for the selector's filter box, built once per catalog snapshot (see
+// CapeCatalog#searchIndex). Each entry's id, name and tier are lowercased into one haystack.
+// A query is split on whitespace and every term has to match (case-insensitive):
+//
+//   terms of 3+ chars  substring match; candidates come from the rarest of the term's trigram
+//                      posting lists (narrowed by the other lists of similar size) and are then
+//                      checked against the text
+//   shorter terms      prefix of a word; one lookup in the 1-2 char word prefix postings
+//
+// Results are entry positions in catalog order, so a keystroke costs a few array walks rather
+// than a pass over every option (which, for a mapped catalog, would decode every entry).
+final class CapeSearchIndex {
+  static final ExecutorService BUILDER = Executors.newSingleThreadExecutor(CapeHttpFetcher.daemonThreads("fishbattery-cape-search"));
+  private static final char SEPARATOR = '\u0000';
+  private static final int[] NONE = new int[0];
+  // Intersecting with a list this many times longer than the candidates costs more than
+  // checking the candidates' text directly.
+  private static final int MAX_INTERSECT_RATIO = 8;
+
+  private final String[] haystacks;
+  private final Map<Long, int[]> trigrams;
+  private final Map<String, int[]> wordPrefixes;
+
+  private CapeSearchIndex(String[] haystacks, Map<Long, int[]> trigrams, Map<String, int[]> wordPrefixes) {
+    this.haystacks = haystacks;
+    this.trigrams = trigrams;
+    this.wordPrefixes = wordPrefixes;
+  }
+
+  static CapeSearchIndex build(List<LauncherCapeRuntime.CapeOption> options) {
+    final int count = options.size();
+    final String[] haystacks = new String[count];
+    final Map<Long, Postings> grams = new HashMap<>();
+    final Map<String, Postings> prefixes = new HashMap<>();
+    for (int entry = 0; entry < count; entry++) {
+      final String text = haystack(options.get(entry));
+      haystacks[entry] = text;
+
+      // Entries are visited in order, so every posting list comes out sorted (and Postings
+      // drops repeats of the same entry).
+      for (int i = 0; i + 2 < text.length(); i++) {
+        final char a = text.charAt(i), b = text.charAt(i + 1), c = text.charAt(i + 2);
+        // Grams straddling a field boundary can't match a query term.
+        if (a == SEPARATOR || b == SEPARATOR || c == SEPARATOR) continue;
+        grams.computeIfAbsent(trigram(a, b, c), k -> new Postings()).add(entry);
+      }
+      for (int i = 0; i < text.length(); i++) {
+        if (!Character.isLetterOrDigit(text.charAt(i))) continue;
+        if (i > 0 && Character.isLetterOrDigit(text.charAt(i - 1))) continue;
+        prefixes.computeIfAbsent(text.substring(i, i + 1), k -> new Postings()).add(entry);
+        if (i + 1 < text.length() && Character.isLetterOrDigit(text.charAt(i + 1))) {
+          prefixes.computeIfAbsent(text.substring(i, i + 2), k -> new Postings()).add(entry);
+        }
+      }
+    }
+
+    final Map<Long, int[]> trigrams = new HashMap<>(grams.size() * 2);
+    for (Map.Entry<Long, Postings> e : grams.entrySet()) trigrams.put(e.getKey(), e.getValue().toArray());
+    final Map<String, int[]> wordPrefixes = new HashMap<>(prefixes.size() * 2);
+    for (Map.Entry<String, Postings> e : prefixes.entrySet()) wordPrefixes.put(e.getKey(), e.getValue().toArray());
+    return new CapeSearchIndex(haystacks, trigrams, wordPrefixes);
+  }
+
+  /** Matching entry positions in ascending order, or {@code null} when the query is blank (everything matches). */
+  int[] search(String query) {
+    final String[] terms = terms(query);
+    if (terms.length == 0) return null;
+    int[] result = null;
+    for (String term : terms) {
+      final int[] matches = term.length() >= 3 ? substringMatches(term) : wordPrefixMatches(term);
+      result = result == null ? matches : intersect(result, matches);
+      if (result.length == 0) return NONE;
+    }
+    return result;
+  }
+
+  private int[] substringMatches(String term) {
+    final int[][] lists = new int[term.length() - 2][];
+    for (int i = 0; i < lists.length; i++) {
+      lists[i] = trigrams.get(trigram(term.charAt(i), term.charAt(i + 1), term.charAt(i + 2)));
+      if (lists[i] == null) return NONE;
+    }
+    Arrays.sort(lists, (x, y) -> Integer.compare(x.length, y.length));
+    int[] candidates = lists[0];
+    for (int i = 1; i < lists.length && candidates.length > 0; i++) {
+      if (lists[i].length > (long) candidates.length * MAX_INTERSECT_RATIO) break;
+      candidates = intersect(candidates, lists[i]);
+    }
+    // A single trigram posting is exact; otherwise the grams only narrow it down ("abcd" and
+    // "bcdabc" share them), so confirm on the text.
+    if (term.length() == 3) return candidates;
+    final int[] out = new int[candidates.length];
+    int n = 0;
+    for (int entry : candidates) {
+      if (haystacks[entry].contains(term)) out[n++] = entry;
+    }
+    return n == out.length ? out : Arrays.copyOf(out, n);
+  }
+
+  private int[] wordPrefixMatches(String term) {
+    final int[] matches = wordPrefixes.get(term);
+    return matches == null ? NONE : matches;
+  }
+
+  private static String[] terms(String query) {
+    final String trimmed = String.valueOf(query == null ? "" : query).trim().toLowerCase(Locale.ROOT);
+    return trimmed.isEmpty() ? new String[0] : trimmed.split("\\s+");
+  }
+
+  private static String haystack(LauncherCapeRuntime.CapeOption option) {
+    return (option.id + SEPARATOR + option.name + SEPARATOR + option.tier).toLowerCase(Locale.ROOT);
+  }
+
+  private static long trigram(char a, char b, char c) {
+    return (long) a << 32 | (long) b << 16 | c;
+  }
+
+  private static int[] intersect(int[] a, int[] b) {
+    final int[] out = new int[Math.min(a.length, b.length)];
+    int i = 0, j = 0, n = 0;
+    while (i < a.length && j < b.length) {
+      if (a[i] < b[j]) i++;
+      else if (a[i] > b[j]) j++;
+      else {
+        out[n++] = a[i];
+        i++;
+        j++;
+      }
+    }
+    return n == out.length ? out : Arrays.copyOf(out, n);
+  }
+
+  private static final class Postings {
+    int[] entries = new int[4];
+    int size = 0;
+
+    void add(int entry) {
+      if (size > 0 && entries[size - 1] == entry) return;
+      if (size == entries.length) entries = Arrays.copyOf(entries, size * 2);
+      entries[size++] = entry;
+    }
+
+    int[] toArray() {
+      return Arrays.copyOf(entries, size);
+    }
+  }
+}
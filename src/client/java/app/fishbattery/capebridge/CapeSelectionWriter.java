@@ -0,0 +1,163 @@
+package app.fishbattery.capebridge;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Write-behind persistence of the selected cape (the catalog's selected= line and the meta JSON).
+// Selections only replace the pending one; a single daemon thread writes the latest after a short
+// quiet period, through temp file + atomic move, and a shutdown hook flushes whatever is left.
+// Flipping through capes in the selector therefore costs no disk I/O on the render thread.
+final class CapeSelectionWriter {
+  private static final long DEFAULT_DELAY_MILLIS = 250L;
+  // Own writes remembered for the watcher; a late event may still read one from a few writes back.
+  private static final int RECENT_WRITES = 8;
+
+  private final long delayMillis;
+  private final ScheduledExecutorService worker = Executors.newSingleThreadScheduledExecutor(CapeHttpFetcher.daemonThreads("fishbattery-cape-selection"));
+  private final AtomicReference<Selection> pending = new AtomicReference<>();
+  private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+  private final ArrayDeque<String> recentMetaWrites = new ArrayDeque<>(RECENT_WRITES);
+
+  CapeSelectionWriter(long delayMillis) {
+    this.delayMillis = Math.max(0L, delayMillis);
+    try {
+      Runtime.getRuntime().addShutdownHook(new Thread(this::flush, "fishbattery-cape-selection-flush"));
+    } catch (Exception ignored) {}
+  }
+
+  static CapeSelectionWriter withDefaultDelay() {
+    return new CapeSelectionWriter(DEFAULT_DELAY_MILLIS);
+  }
+
+  /** Queues the selection; an earlier one that hasn't been written yet is dropped. */
+  void submit(Path catalogPath, Path metaPath, String capeId, String tier, String fullPath, String cloudUrl) {
+    pending.set(new Selection(catalogPath, metaPath, capeId, tier, fullPath, cloudUrl));
+    if (!flushScheduled.compareAndSet(false, true)) return;
+    try {
+      worker.schedule(this::flush, delayMillis, TimeUnit.MILLISECONDS);
+    } catch (Exception e) {
+      flushScheduled.set(false);
+      flush();
+    }
+  }
+
+  /** Writes the pending selection, if any, on the calling thread. */
+  synchronized void flush() {
+    flushScheduled.set(false);
+    final Selection selection = pending.getAndSet(null);
+    if (selection == null) return;
+    writeCatalogSelection(selection.catalogPath, selection.capeId);
+    writeMeta(selection);
+  }
+
+  /**
+   * True when {@code json} is one of the last few things this writer put in the meta file, or a
+   * selection is still queued (it will overwrite whatever the file says now).
+   */
+  boolean isOwnMetaWrite(String json) {
+    if (json == null) return false;
+    if (pending.get() != null) return true;
+    synchronized (recentMetaWrites) {
+      return recentMetaWrites.contains(json);
+    }
+  }
+
+  private static void writeCatalogSelection(Path catalogPath, String selectedCapeId) {
+    if (catalogPath == null || !Files.isRegularFile(catalogPath)) return;
+    // Binary catalogs are read-only here; the meta file still records the selection.
+    if (BinaryCapeCatalog.hasMagic(catalogPath)) return;
+    try {
+      final List<String> in = Files.readAllLines(catalogPath, StandardCharsets.UTF_8);
+      final List<String> out = new ArrayList<>(in.size() + 1);
+      final String selectedLine = "selected=" + encodeCatalogField(selectedCapeId);
+      boolean replaced = false;
+      for (String line : in) {
+        if (String.valueOf(line).startsWith("selected=")) {
+          if (line.equals(selectedLine)) return;
+          out.add(selectedLine);
+          replaced = true;
+        } else {
+          out.add(line);
+        }
+      }
+      if (!replaced) out.add(0, selectedLine);
+      CapeDiskCache.writeAtomically(catalogPath, String.join("\n", out).concat("\n").getBytes(StandardCharsets.UTF_8));
+    } catch (Exception e) {
+      CapeLog.warn("selection.catalogWriteFailed", "failed to save cape selection to catalog", "error", e.getMessage());
+    }
+  }
+
+  private void writeMeta(Selection selection) {
+    if (selection.metaPath == null) return;
+    final String json =
+      "{\n" +
+      "  \"capeId\": \"" + escapeJson(selection.capeId) + "\",\n" +
+      "  \"tier\": \"" + escapeJson(selection.tier) + "\",\n" +
+      "  \"fullPath\": \"" + escapeJson(selection.fullPath) + "\",\n" +
+      "  \"cloudUrl\": \"" + escapeJson(selection.cloudUrl) + "\",\n" +
+      "  \"updatedAt\": " + System.currentTimeMillis() + "\n" +
+      "}\n";
+    try {
+      // Remembered before the move so the watcher event for this write is always recognized; the
+      // earlier ones stay remembered for events that read the file before the move lands.
+      synchronized (recentMetaWrites) {
+        if (recentMetaWrites.size() == RECENT_WRITES) recentMetaWrites.removeFirst();
+        recentMetaWrites.addLast(json);
+      }
+      CapeDiskCache.writeAtomically(selection.metaPath, json.getBytes(StandardCharsets.UTF_8));
+    } catch (Exception e) {
+      CapeLog.warn("selection.metaWriteFailed", "failed to save cape selection to meta", "error", e.getMessage());
+    }
+  }
+
+  private static String encodeCatalogField(String value) {
+    return URLEncoder.encode(String.valueOf(value == null ? "" : value), StandardCharsets.UTF_8);
+  }
+
+  private static String escapeJson(String value) {
+    final String raw = String.valueOf(value == null ? "" : value);
+    final StringBuilder out = new StringBuilder(raw.length() + 8);
+    for (int i = 0; i < raw.length(); i++) {
+      final char c = raw.charAt(i);
+      switch (c) {
+        case '"': out.append("\\\""); break;
+        case '\\': out.append("\\\\"); break;
+        case '\n': out.append("\\n"); break;
+        case '\r': out.append("\\r"); break;
+        case '\t': out.append("\\t"); break;
+        default:
+          if (c < 0x20) out.append(String.format("\\u%04x", (int) c));
+          else out.append(c);
+      }
+    }
+    return out.toString();
+  }
+
+  private static final class Selection {
+    final Path catalogPath;
+    final Path metaPath;
+    final String capeId;
+    final String tier;
+    final String fullPath;
+    final String cloudUrl;
+
+    Selection(Path catalogPath, Path metaPath, String capeId, String tier, String fullPath, String cloudUrl) {
+      this.catalogPath = catalogPath;
+      this.metaPath = metaPath;
+      this.capeId = capeId;
+      this.tier = tier;
+      this.fullPath = fullPath;
+      this.cloudUrl = cloudUrl;
+    }
+  }
+}
@@ -1,11 +1,15 @@
 package app.fishbattery.capebridge;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
+import java.util.RandomAccess;
+import java.util.function.Consumer;
 import java.lang.reflect.Method;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.gui.components.Button;
+import net.minecraft.client.gui.components.EditBox;
 import net.minecraft.client.gui.screens.Screen;
 import net.minecraft.network.chat.Component;
 
@@ -13,91 +17,94 @@ import net.minecraft.network.chat.Component;
 // This screen is intentionally reflection-heavy so it can survive minor API shifts
 // across supported Minecraft versions/mappings without maintaining per-version UIs.
 public final class CapeSelectorScreen extends Screen {
-  // Keep page size fixed so layout stays stable on low-height windows.
-  private static final int ROWS_PER_PAGE = 8;
+  private static final int ROW_HEIGHT = 24;
+  private static final int BUTTON_WIDTH = 320;
+  private static final int BUTTON_HEIGHT = 20;
+  private static final int LIST_TOP = 40;
+  // Shared across re-inits (resizes); dropped once the selector is left.
+  private static final CapeThumbnails THUMBNAILS = new CapeThumbnails();
+  private static volatile Method cachedAdder = null;
   private final Screen parent;
-  private final int page;
+  private CapeCatalog catalog = CapeCatalog.EMPTY;
+  private List<LauncherCapeRuntime.CapeOption> allEntries;
+  // allEntries narrowed by the search box; what the rows show.
   private List<LauncherCapeRuntime.CapeOption> entries;
+  private String query = "";
+  // Set while a query waits for the search index; tick() applies it once the index is built.
+  private boolean filterPending = false;
+  // Virtualized list: one button per visible row, re-labelled as the list scrolls.
+  private final List<Button> rowButtons = new ArrayList<>();
+  // What each row shows, captured by refreshRows so drawing a frame neither re-reads entries (a
+  // decode each, for a mapped catalog) nor rebuilds their preview keys.
+  private LauncherCapeRuntime.CapeOption[] rowOptions = new LauncherCapeRuntime.CapeOption[0];
+  private String[] rowPreviewKeys = new String[0];
+  private Button noCapeButton = null;
+  private int scrollOffset = 0;
+  private int listLeft = 0;
+  private int listRowsTop = 0;
 
   public CapeSelectorScreen(Screen parent) {
-    this(parent, 0);
-  }
-
-  public CapeSelectorScreen(Screen parent, int page) {
     super(literal("Fishbattery Capes"));
     this.parent = parent;
-    this.page = Math.max(0, page);
-    this.entries = new ArrayList<>();
+    this.allEntries = new ArrayList<>();
+    this.entries = this.allEntries;
   }
 
   @Override
   protected void init() {
     // Re-query runtime on each init so selection and remote catalog updates are visible immediately.
-    this.entries = new ArrayList<>(LauncherCapeRuntime.getSelectableCapes());
-    final String selectedId = LauncherCapeRuntime.getSelectedCapeId();
-    final int totalPages = Math.max(1, (int) Math.ceil(this.entries.size() / (double) ROWS_PER_PAGE));
-    final int currentPage = Math.min(this.page, totalPages - 1);
-    final int start = currentPage * ROWS_PER_PAGE;
-    final int end = Math.min(this.entries.size(), start + ROWS_PER_PAGE);
+    // Read-only and possibly a lazy view over a mapped catalog: only the visible rows are decoded.
+    this.catalog = LauncherCapeRuntime.getCatalogSnapshot();
+    this.allEntries = this.catalog.options;
+    // Start building the filter index now so it is usually ready by the first keystroke.
+    this.catalog.searchIndex();
+    this.rowButtons.clear();
 
-    final int buttonWidth = 320;
-    final int buttonHeight = 20;
-    final int left = (this.width - buttonWidth) / 2;
-    int y = 40;
+    this.listLeft = (this.width - BUTTON_WIDTH) / 2;
+    final int footerY = this.height - 28;
+    final Object searchBox = createSearchBoxCompat(this.listLeft, LIST_TOP, BUTTON_WIDTH, BUTTON_HEIGHT, this::applyFilter);
+    addWidgetCompat(searchBox);
 
-    addWidgetCompat(
-      createButtonCompat(
-        this.decorateSelected("No Fishbattery Cape", selectedId.isEmpty()),
-        left,
-        y,
-        buttonWidth,
-        buttonHeight,
+    this.noCapeButton = asButton(createButtonCompat(
+      literal("No Fishbattery Cape"),
+      this.listLeft,
+      LIST_TOP + ROW_HEIGHT,
+      BUTTON_WIDTH,
+      BUTTON_HEIGHT,
+      (btn) -> this.select("")
+    ));
+    addWidgetCompat(this.noCapeButton);
+
+    // As many rows as fit between the "no cape" row and the footer.
+    this.listRowsTop = LIST_TOP + 2 * ROW_HEIGHT;
+    final int rowCount = Math.max(1, (footerY - 4 - this.listRowsTop) / ROW_HEIGHT);
+    for (int i = 0; i < rowCount; i++) {
+      final int row = i;
+      final Button button = asButton(createButtonCompat(
+        literal(""),
+        this.listLeft,
+        this.listRowsTop + i * ROW_HEIGHT,
+        BUTTON_WIDTH,
+        BUTTON_HEIGHT,
         (btn) -> {
-          LauncherCapeRuntime.selectCapeById("");
-          // Re-open same page to refresh selected marker and keep UX consistent.
-          this.minecraft.setScreen(new CapeSelectorScreen(this.parent, currentPage));
+          final int index = this.scrollOffset + row;
+          if (index < this.entries.size()) this.select(this.entries.get(index).id);
         }
-      )
-    );
-    y += 24;
-
-    for (int i = start; i < end; i++) {
-      final LauncherCapeRuntime.CapeOption item = this.entries.get(i);
-      final String tierLabel =
-        item.tier == null || item.tier.isEmpty() ? "free" : item.tier.toLowerCase(Locale.ROOT);
-      final String name = item.name == null || item.name.isEmpty() ? item.id : item.name;
-      final String label = String.format("%s [%s]", name, tierLabel);
-      addWidgetCompat(
-        createButtonCompat(
-          this.decorateSelected(label, item.id.equals(selectedId)),
-          left,
-          y,
-          buttonWidth,
-          buttonHeight,
-          (btn) -> {
-            LauncherCapeRuntime.selectCapeById(item.id);
-            // Re-open to re-render active state and guarantee runtime side effects are reflected.
-            this.minecraft.setScreen(new CapeSelectorScreen(this.parent, currentPage));
-          }
-        )
-      );
-      y += 24;
+      ));
+      if (button == null) continue;
+      this.rowButtons.add(button);
+      addWidgetCompat(button);
     }
 
-    final int footerY = this.height - 28;
     final int navWidth = 98;
     addWidgetCompat(
       createButtonCompat(
         literal("Prev"),
-        left,
+        this.listLeft,
         footerY,
         navWidth,
         20,
-        (btn) -> {
-          // Page navigation clamps to valid bounds.
-          final int prev = Math.max(0, currentPage - 1);
-          this.minecraft.setScreen(new CapeSelectorScreen(this.parent, prev));
-        }
+        (btn) -> this.scrollBy(-Math.max(1, this.rowButtons.size()))
       )
     );
     addWidgetCompat(
@@ -107,26 +114,168 @@ public final class CapeSelectorScreen extends Screen {
         footerY,
         100,
         20,
-        (btn) -> this.minecraft.setScreen(this.parent)
+        (btn) -> this.leave()
       )
     );
     addWidgetCompat(
       createButtonCompat(
         literal("Next"),
-        left + buttonWidth - navWidth,
+        this.listLeft + BUTTON_WIDTH - navWidth,
         footerY,
         navWidth,
         20,
-        (btn) -> {
-          final int next = Math.min(totalPages - 1, currentPage + 1);
-          this.minecraft.setScreen(new CapeSelectorScreen(this.parent, next));
-        }
+        (btn) -> this.scrollBy(Math.max(1, this.rowButtons.size()))
       )
     );
+
+    // Re-applies the query kept across resizes (and sets entries for an empty one).
+    this.applyFilter(this.query);
+  }
+
+  // Mouse wheel scrolls one row per notch. Both shapes are declared: the 3-arg one before 1.20.2,
+  // the 4-arg one (with horizontal delta) after; whichever the target has is the override.
+  public boolean mouseScrolled(double mouseX, double mouseY, double delta) {
+    return this.scrollByWheel(delta);
+  }
+
+  public boolean mouseScrolled(double mouseX, double mouseY, double deltaX, double deltaY) {
+    return this.scrollByWheel(deltaY);
+  }
+
+  private boolean scrollByWheel(double delta) {
+    if (delta == 0.0) return false;
+    this.scrollBy(delta > 0.0 ? -1 : 1);
+    return true;
+  }
+
+  private void scrollBy(int rows) {
+    final int maxOffset = Math.max(0, this.entries.size() - this.rowButtons.size());
+    this.scrollOffset = Math.max(0, Math.min(maxOffset, this.scrollOffset + rows));
+    this.refreshRows();
+  }
+
+  // Until the index is built the unfiltered list stays up: scanning a mapped catalog here would
+  // decode every entry on the render thread.
+  private void applyFilter(String text) {
+    this.query = text == null ? "" : text;
+    final CapeSearchIndex index = this.catalog.searchIndex();
+    this.filterPending = index == null && !this.query.isBlank();
+    final int[] matches = index == null ? null : index.search(this.query);
+    this.entries = matches == null ? this.allEntries : new Matches(this.allEntries, matches);
+    this.scrollOffset = 0;
+    this.scrollBy(0);
+  }
+
+  @Override
+  public void tick() {
+    super.tick();
+    if (this.filterPending && this.catalog.searchIndex() != null) this.applyFilter(this.query);
+  }
+
+  private void select(String capeId) {
+    LauncherCapeRuntime.selectCapeById(capeId);
+    // Selection markers are updated in place; the screen and its widgets stay as they are.
+    this.refreshRows();
+  }
+
+  // Re-labels the row buttons for the current scroll offset; rows past the end are hidden.
+  private void refreshRows() {
+    final String selectedId = LauncherCapeRuntime.getSelectedCapeId();
+    if (this.noCapeButton != null) {
+      this.noCapeButton.setMessage(this.decorateSelected("No Fishbattery Cape", selectedId.isEmpty()));
+    }
+    if (this.rowOptions.length != this.rowButtons.size()) {
+      this.rowOptions = new LauncherCapeRuntime.CapeOption[this.rowButtons.size()];
+      this.rowPreviewKeys = new String[this.rowButtons.size()];
+    }
+    for (int i = 0; i < this.rowButtons.size(); i++) {
+      final Button button = this.rowButtons.get(i);
+      final int index = this.scrollOffset + i;
+      if (index >= this.entries.size()) {
+        button.visible = false;
+        this.rowOptions[i] = null;
+        this.rowPreviewKeys[i] = null;
+        continue;
+      }
+      final LauncherCapeRuntime.CapeOption item = this.entries.get(index);
+      if (item != this.rowOptions[i]) {
+        this.rowOptions[i] = item;
+        this.rowPreviewKeys[i] = CapeThumbnails.keyOf(item);
+      }
+      final String tierLabel =
+        item.tier == null || item.tier.isEmpty() ? "free" : item.tier.toLowerCase(Locale.ROOT);
+      final String name = item.name == null || item.name.isEmpty() ? item.id : item.name;
+      button.setMessage(this.decorateSelected(String.format("%s [%s]", name, tierLabel), item.id.equals(selectedId)));
+      button.visible = true;
+    }
   }
 
   @Override
   public void onClose() {
+    this.leave();
+  }
+
+  // Called from the Screen render mixin after widgets are drawn; previews still decoding are skipped.
+  public void renderThumbnails(Object graphics) {
+    final int top = this.listRowsTop + (BUTTON_HEIGHT - CapeThumbnails.HEIGHT) / 2;
+    for (int i = 0; i < this.rowOptions.length; i++) {
+      final LauncherCapeRuntime.CapeOption item = this.rowOptions[i];
+      if (item == null) break;
+      final int[] pixels = THUMBNAILS.get(this.rowPreviewKeys[i], item);
+      if (pixels == null) continue;
+      THUMBNAILS.draw(graphics, this, pixels, this.listLeft + 4, top + i * ROW_HEIGHT);
+    }
+  }
+
+  private Object createSearchBoxCompat(int x, int y, int width, int height, Consumer<String> responder) {
+    if (this.font == null) return null;
+    try {
+      // EditBox(Font, x, y, w, h, [EditBox previous,] Component narration) depending on version.
+      for (java.lang.reflect.Constructor<?> c : EditBox.class.getConstructors()) {
+        final Class<?>[] p = c.getParameterTypes();
+        if (p.length < 6 || !p[0].isInstance(this.font)) continue;
+        if (p[1] != int.class || p[2] != int.class || p[3] != int.class || p[4] != int.class) continue;
+        final Object[] args = new Object[p.length];
+        args[0] = this.font;
+        args[1] = Integer.valueOf(x);
+        args[2] = Integer.valueOf(y);
+        args[3] = Integer.valueOf(width);
+        args[4] = Integer.valueOf(height);
+        boolean usable = true;
+        for (int i = 5; i < p.length; i++) {
+          if (p[i].isPrimitive()) usable = false;
+          else args[i] = p[i].isAssignableFrom(Component.class) ? literal("Search capes") : null;
+        }
+        if (!usable) continue;
+        final Object box = c.newInstance(args);
+        // Restore the text before hooking the responder; init applies the query itself.
+        invokeSingleArg(box, String.class, this.query, "setValue", "method_1852");
+        invokeSingleArg(box, Consumer.class, responder, "setResponder", "method_1863");
+        return box;
+      }
+    } catch (Exception ignored) {}
+    return null;
+  }
+
+  private static void invokeSingleArg(Object target, Class<?> parameterType, Object arg, String... names) {
+    for (Method m : target.getClass().getMethods()) {
+      if (m.getParameterCount() != 1 || m.getParameterTypes()[0] != parameterType) continue;
+      for (String name : names) {
+        if (!m.getName().equals(name)) continue;
+        try {
+          m.invoke(target, arg);
+        } catch (Exception ignored) {}
+        return;
+      }
+    }
+  }
+
+  private static Button asButton(Object widget) {
+    return widget instanceof Button ? (Button) widget : null;
+  }
+
+  private void leave() {
+    THUMBNAILS.clear();
     // Always return to caller screen rather than defaulting to generic back behavior.
     final Minecraft mc = this.minecraft;
     if (mc != null) mc.setScreen(this.parent);
@@ -140,6 +289,14 @@ public final class CapeSelectorScreen extends Screen {
     if (widget == null) return;
     // First pass: prefer methods whose return type matches the widget type/builder style.
     // This keeps behavior deterministic when multiple add* methods exist.
+    // The winning adder is remembered: init adds one widget per visible row.
+    final Method cached = cachedAdder;
+    if (cached != null && cached.getParameterTypes()[0].isAssignableFrom(widget.getClass())) {
+      try {
+        cached.invoke(this, widget);
+        return;
+      } catch (Exception ignored) {}
+    }
     Method preferred = null;
     for (Method m : this.getClass().getMethods()) {
       if (m.getParameterCount() != 1) continue;
@@ -155,6 +312,7 @@ public final class CapeSelectorScreen extends Screen {
     if (preferred != null) {
       try {
         preferred.invoke(this, widget);
+        cachedAdder = preferred;
         return;
       } catch (Exception ignored) {}
     }
@@ -249,4 +407,25 @@ public final class CapeSelectorScreen extends Screen {
     } catch (Exception ignored) {}
     return null;
   }
+
+  // Rows matching the current query, as a view over the catalog list (entries are not copied).
+  private static final class Matches extends AbstractList<LauncherCapeRuntime.CapeOption> implements RandomAccess {
+    private final List<LauncherCapeRuntime.CapeOption> all;
+    private final int[] positions;
+
+    Matches(List<LauncherCapeRuntime.CapeOption> all, int[] positions) {
+      this.all = all;
+      this.positions = positions;
+    }
+
+    @Override
+    public LauncherCapeRuntime.CapeOption get(int index) {
+      return all.get(positions[index]);
+    }
+
+    @Override
+    public int size() {
+      return positions.length;
+    }
+  }
 }
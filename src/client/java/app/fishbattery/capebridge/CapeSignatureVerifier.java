@@ -0,0 +1,90 @@
+package app.fishbattery.capebridge;
+
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// SHA256withRSA checks for premium/founder capes, off the render thread.
+// The public key is parsed once; results are remembered per (content hash, signature hash), so
+// switching back to a cape that was already verified only costs two digests on the worker.
+final class CapeSignatureVerifier {
+  private static final int MAX_REMEMBERED = 64;
+  private static final LongAdder HITS = CapeMetrics.counter("cache.signature.hit");
+  private static final LongAdder MISSES = CapeMetrics.counter("cache.signature.miss");
+  private static final CapeMetrics.Histogram VERIFY_LATENCY = CapeMetrics.histogram("pipeline.verify");
+
+  private final String publicKeyBase64;
+  private final ExecutorService worker = Executors.newSingleThreadExecutor(CapeHttpFetcher.daemonThreads("fishbattery-cape-verify"));
+  private final Map<String, Boolean> results = new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+      return size() > MAX_REMEMBERED;
+    }
+  };
+  private volatile PublicKey publicKey = null;
+
+  CapeSignatureVerifier(String publicKeyBase64) {
+    this.publicKeyBase64 = publicKeyBase64;
+  }
+
+  /**
+   * Starts verifying {@code data} against the signature produced by {@code signatureSource}
+   * (called on the worker, so it may read files). Completes with {@code false} for a missing,
+   * empty or invalid signature; never completes exceptionally.
+   */
+  CompletableFuture<Boolean> verifyAsync(byte[] data, Supplier<byte[]> signatureSource) {
+    try {
+      return CompletableFuture.supplyAsync(() -> verify(data, signatureSource.get()), worker);
+    } catch (Exception e) {
+      return CompletableFuture.completedFuture(verify(data, signatureSource.get()));
+    }
+  }
+
+  boolean verify(byte[] data, byte[] signature) {
+    if (data == null || signature == null || signature.length == 0) return false;
+    final String key = CapeDiskCache.sha256Hex(data) + ":" + CapeDiskCache.sha256Hex(signature);
+    synchronized (results) {
+      final Boolean known = results.get(key);
+      if (known != null) {
+        HITS.increment();
+        return known;
+      }
+    }
+    MISSES.increment();
+
+    final long started = System.nanoTime();
+    boolean valid;
+    try {
+      final Signature sig = Signature.getInstance("SHA256withRSA");
+      sig.initVerify(publicKey());
+      sig.update(data);
+      valid = sig.verify(signature);
+    } catch (Throwable t) {
+      valid = false;
+    }
+    VERIFY_LATENCY.since(started);
+    synchronized (results) {
+      results.put(key, valid);
+    }
+    return valid;
+  }
+
+  private PublicKey publicKey() throws Exception {
+    PublicKey key = publicKey;
+    if (key == null) {
+      final byte[] encoded = Base64.getDecoder().decode(publicKeyBase64);
+      key = KeyFactory.getInstance("RSA").generatePublic(new X509EncodedKeySpec(encoded));
+      publicKey = key;
+    }
+    return key;
+  }
+}
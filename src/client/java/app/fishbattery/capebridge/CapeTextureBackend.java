@@ -0,0 +1,21 @@
+package app.fishbattery.capebridge;
+
+// How a registered cape texture is handed to the game on one Minecraft version family. Exactly one
+// backend is picked when LauncherCapeRuntime initializes (see CapeTextureBackends#select); every
+// hook goes through it, so the per-version differences are resolved once instead of per call.
+interface CapeTextureBackend {
+  /** Family id, as in the "capeBackend" field of config/release-matrix.json. */
+  String id();
+
+  /** The game's Identifier/ResourceLocation class, or {@code null} when none was found. */
+  Class<?> identifierClass();
+
+  /** Whether {@code value} is a texture id (or the cape value wrapping one) of this version. */
+  boolean isTextureId(Object value);
+
+  /** Copy of {@code skin} with its cape slots pointing at {@code textureId}, or {@code null} when it can't be rebuilt. */
+  Object replaceCape(Object skin, Object textureId);
+
+  /** Drops whatever was built for {@code textureId}; called when that texture is released. */
+  void release(Object textureId);
+}
@@ -0,0 +1,298 @@
+package app.fishbattery.capebridge;
+
+import java.io.InputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.RecordComponent;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// The CapeTextureBackend adapters, one per "capeBackend" family in config/release-matrix.json:
+//
+//   identifier     1.16 - 1.20.1    capes are bare Identifiers; no skin object to rebuild
+//   skin-record    1.20.2 - 1.21.8  PlayerSkin/SkinTextures record, Identifier cape/elytra slots
+//   client-asset   1.21.9+          PlayerSkin slots hold ClientAsset.Texture; ids are wrapped as
+//                                   ClientAsset.ResourceTexture(id, id)
+//
+// select() probes them most specific first (each needs types the older families don't have) and
+// resolves every class, accessor and constructor up front, so a selected backend does no lookups
+// of its own. The family the jar was built for is stamped into FAMILY_RESOURCE by the build and
+// only checked against: a mismatch, or no adapter fitting at all, is logged once at init.
+final class CapeTextureBackends {
+  static final String IDENTIFIER = "identifier";
+  static final String SKIN_RECORD = "skin-record";
+  static final String CLIENT_ASSET = "client-asset";
+
+  private static final String FAMILY_RESOURCE = "fishbattery-cape-bridge.backend";
+  // Backstop for ids that are wrapped but never released (one per registered cape texture otherwise).
+  private static final int MAX_WRAPPED = 256;
+  private static final String[] IDENTIFIER_CLASSES = {
+    "net.minecraft.class_2960",
+    "net.minecraft.resources.ResourceLocation",
+    "net.minecraft.resources.Identifier",
+    "net.minecraft.util.Identifier"
+  };
+  private static final String[] SKIN_CLASSES = {
+    "net.minecraft.class_8685",
+    "net.minecraft.world.entity.player.PlayerSkin",
+    "net.minecraft.client.resources.PlayerSkin",
+    "net.minecraft.entity.player.SkinTextures",
+    "net.minecraft.client.util.SkinTextures"
+  };
+  private static final String[] RESOURCE_TEXTURE_CLASSES = {
+    "net.minecraft.class_12079$class_10726",
+    "net.minecraft.core.ClientAsset$ResourceTexture",
+    "net.minecraft.client.texture.ClientAsset$ResourceTexture"
+  };
+
+  /** Used when no adapter fits: nothing is a texture id, so every hook falls through to vanilla. */
+  static final CapeTextureBackend NONE = new CapeTextureBackend() {
+    @Override
+    public String id() {
+      return "none";
+    }
+
+    @Override
+    public Class<?> identifierClass() {
+      return null;
+    }
+
+    @Override
+    public boolean isTextureId(Object value) {
+      return false;
+    }
+
+    @Override
+    public Object replaceCape(Object skin, Object textureId) {
+      return null;
+    }
+
+    @Override
+    public void release(Object textureId) {}
+  };
+
+  private CapeTextureBackends() {}
+
+  static CapeTextureBackend select() {
+    final long started = System.nanoTime();
+    final String built = builtFamily();
+    final ClassLoader loader = CapeTextureBackends.class.getClassLoader();
+    final Class<?> identifier = findClass(loader, IDENTIFIER_CLASSES);
+    final Class<?> skin = findClass(loader, SKIN_CLASSES);
+    final Class<?> resourceTexture = findClass(loader, RESOURCE_TEXTURE_CLASSES);
+
+    CapeTextureBackend backend = clientAsset(identifier, skin, resourceTexture);
+    if (backend == null) backend = skinRecord(identifier, skin);
+    if (backend == null) backend = identifier(identifier);
+    if (backend == null) {
+      CapeLog.warn("backend.none", "no cape texture backend fits this game; launcher capes are disabled",
+        "built", built, "identifier", className(identifier), "skin", className(skin));
+      return NONE;
+    }
+
+    CapeMetrics.fallback("backend", backend.id());
+    if (!built.isEmpty() && !built.equals(backend.id())) {
+      CapeLog.warn("backend.mismatch", "cape texture backend differs from the one this jar was built for",
+        "backend", backend.id(), "built", built, "skin", className(skin));
+    } else {
+      CapeLog.info("backend.selected", "cape texture backend selected", "backend", backend.id(),
+        "identifier", className(identifier), "skin", className(skin), "latencyMs", (System.nanoTime() - started) / 1_000_000L);
+    }
+    return backend;
+  }
+
+  // -------------------------
+  // Adapters
+  // -------------------------
+  // Package-private so benchmarks can bind them to stand-in types; each returns null when the
+  // classes it is given don't have the shape its family needs.
+
+  static CapeTextureBackend identifier(Class<?> identifierClass) {
+    if (identifierClass == null) return null;
+    return new Backend(IDENTIFIER, identifierClass, identifierClass, null, null);
+  }
+
+  static CapeTextureBackend skinRecord(Class<?> identifierClass, Class<?> skinClass) {
+    if (identifierClass == null) return null;
+    final SkinRebuilder rebuilder = SkinRebuilder.compile(skinClass, identifierClass);
+    if (rebuilder == null) return null;
+    return new Backend(SKIN_RECORD, identifierClass, identifierClass, null, rebuilder);
+  }
+
+  static CapeTextureBackend clientAsset(Class<?> identifierClass, Class<?> skinClass, Class<?> resourceTextureClass) {
+    if (identifierClass == null || resourceTextureClass == null) return null;
+    final MethodHandle wrap = findWrapper(resourceTextureClass, identifierClass);
+    if (wrap == null) return null;
+    final SkinRebuilder rebuilder = SkinRebuilder.compile(skinClass, resourceTextureClass);
+    if (rebuilder == null) return null;
+    return new Backend(CLIENT_ASSET, identifierClass, resourceTextureClass, wrap, rebuilder);
+  }
+
+  private static final class Backend implements CapeTextureBackend {
+    private final String id;
+    private final Class<?> identifierClass;
+    // What the skin's cape slots hold: the identifier itself, or the ClientAsset wrapping it.
+    private final Class<?> capeClass;
+    private final MethodHandle wrap;
+    private final SkinRebuilder rebuilder;
+    // Registered ids are long-lived and handed in every frame; wrap each once. The wrapper holds
+    // its id, so entries are dropped explicitly when the texture is released.
+    private final Map<Object, Object> wrapped = new ConcurrentHashMap<>();
+
+    Backend(String id, Class<?> identifierClass, Class<?> capeClass, MethodHandle wrap, SkinRebuilder rebuilder) {
+      this.id = id;
+      this.identifierClass = identifierClass;
+      this.capeClass = capeClass;
+      this.wrap = wrap;
+      this.rebuilder = rebuilder;
+    }
+
+    @Override
+    public String id() {
+      return id;
+    }
+
+    @Override
+    public Class<?> identifierClass() {
+      return identifierClass;
+    }
+
+    @Override
+    public boolean isTextureId(Object value) {
+      return identifierClass.isInstance(value) || capeClass.isInstance(value);
+    }
+
+    @Override
+    public Object replaceCape(Object skin, Object textureId) {
+      if (rebuilder == null || skin == null || skin.getClass() != rebuilder.skinClass) return null;
+      try {
+        final Object cape = capeValue(textureId);
+        return cape == null ? null : rebuilder.rebuild(skin, cape);
+      } catch (Throwable ignored) {
+        return null;
+      }
+    }
+
+    @Override
+    public void release(Object textureId) {
+      if (textureId != null) wrapped.remove(textureId);
+    }
+
+    private Object capeValue(Object textureId) throws Throwable {
+      if (capeClass.isInstance(textureId)) return textureId;
+      if (wrap == null || !identifierClass.isInstance(textureId)) return null;
+      Object cape = wrapped.get(textureId);
+      if (cape == null) {
+        cape = (Object) wrap.invokeExact(textureId);
+        if (wrapped.size() >= MAX_WRAPPED) wrapped.clear();
+        wrapped.put(textureId, cape);
+      }
+      return cape;
+    }
+  }
+
+  // Canonical-constructor rebuild of one skin record class: an accessor per component, and the
+  // slots after the body texture (index 0) whose type takes the cape value, i.e. cape and elytra.
+  private static final class SkinRebuilder {
+    final Class<?> skinClass;
+    private final MethodHandle[] accessors;
+    private final boolean[] capeSlots;
+    private final MethodHandle constructor;
+
+    private SkinRebuilder(Class<?> skinClass, MethodHandle[] accessors, boolean[] capeSlots, MethodHandle constructor) {
+      this.skinClass = skinClass;
+      this.accessors = accessors;
+      this.capeSlots = capeSlots;
+      this.constructor = constructor;
+    }
+
+    static SkinRebuilder compile(Class<?> skinClass, Class<?> capeClass) {
+      if (skinClass == null || !skinClass.isRecord()) return null;
+      try {
+        final RecordComponent[] comps = skinClass.getRecordComponents();
+        final MethodHandles.Lookup lookup = MethodHandles.lookup();
+        final Class<?>[] types = new Class<?>[comps.length];
+        final MethodHandle[] accessors = new MethodHandle[comps.length];
+        final boolean[] capeSlots = new boolean[comps.length];
+        boolean any = false;
+        for (int i = 0; i < comps.length; i++) {
+          types[i] = comps[i].getType();
+          capeSlots[i] = i > 0 && types[i].isAssignableFrom(capeClass);
+          any |= capeSlots[i];
+          final Method acc = comps[i].getAccessor();
+          acc.setAccessible(true);
+          accessors[i] = lookup.unreflect(acc).asType(MethodType.methodType(Object.class, Object.class));
+        }
+        if (!any) return null;
+        final Constructor<?> ctor = skinClass.getDeclaredConstructor(types);
+        ctor.setAccessible(true);
+        final MethodHandle constructor = lookup.unreflectConstructor(ctor)
+          .asType(MethodType.genericMethodType(types.length))
+          .asSpreader(Object[].class, types.length);
+        return new SkinRebuilder(skinClass, accessors, capeSlots, constructor);
+      } catch (Throwable t) {
+        CapeLog.warn("backend.skinRecord", "could not compile skin record rebuild", "skin", skinClass.getName(), "error", t);
+        return null;
+      }
+    }
+
+    Object rebuild(Object skin, Object cape) throws Throwable {
+      final Object[] args = new Object[accessors.length];
+      for (int i = 0; i < args.length; i++) {
+        args[i] = capeSlots[i] ? cape : (Object) accessors[i].invokeExact(skin);
+      }
+      return (Object) constructor.invokeExact(args);
+    }
+  }
+
+  // -------------------------
+  // Probing
+  // -------------------------
+
+  // ResourceTexture(id, texturePath) with both set to the registered id, so the dynamic texture
+  // isn't remapped to a namespace:textures/path.png resource lookup; (id) where that is missing.
+  private static MethodHandle findWrapper(Class<?> resourceTextureClass, Class<?> identifierClass) {
+    final MethodHandles.Lookup lookup = MethodHandles.lookup();
+    try {
+      final Constructor<?> ctor = resourceTextureClass.getDeclaredConstructor(identifierClass, identifierClass);
+      ctor.setAccessible(true);
+      final MethodHandle handle = lookup.unreflectConstructor(ctor)
+        .asType(MethodType.methodType(Object.class, Object.class, Object.class));
+      return MethodHandles.permuteArguments(handle, MethodType.methodType(Object.class, Object.class), 0, 0);
+    } catch (Throwable ignored) {}
+    try {
+      final Constructor<?> ctor = resourceTextureClass.getDeclaredConstructor(identifierClass);
+      ctor.setAccessible(true);
+      return lookup.unreflectConstructor(ctor).asType(MethodType.methodType(Object.class, Object.class));
+    } catch (Throwable ignored) {}
+    return null;
+  }
+
+  private static Class<?> findClass(ClassLoader loader, String[] names) {
+    for (String name : names) {
+      try {
+        return Class.forName(name, false, loader);
+      } catch (Throwable ignored) {}
+    }
+    return null;
+  }
+
+  // Empty in dev runs, where processResources hasn't expanded the placeholder.
+  private static String builtFamily() {
+    try (InputStream in = CapeTextureBackends.class.getClassLoader().getResourceAsStream(FAMILY_RESOURCE)) {
+      if (in == null) return "";
+      final String raw = new String(in.readAllBytes(), StandardCharsets.UTF_8).trim();
+      return raw.startsWith("${") ? "" : raw;
+    } catch (Exception ignored) {
+      return "";
+    }
+  }
+
+  private static String className(Class<?> cls) {
+    return cls == null ? "" : cls.getName();
+  }
+}
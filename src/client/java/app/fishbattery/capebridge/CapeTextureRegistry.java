@@ -0,0 +1,75 @@
+package app.fishbattery.capebridge;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+// Reference-counted registry of the dynamic textures uploaded for capes, keyed by cape source
+// (CapeSource.cacheKey). The local selection and every shared cape acquire through here, so one
+// source is uploaded once however many holders it has, and the texture is released through the
+// TextureManager (which closes its NativeImage) as soon as the last holder lets go.
+// Render thread only, like the TextureManager it fronts; synchronized for the odd off-thread caller.
+final class CapeTextureRegistry {
+  interface Uploader {
+    /** Decodes and registers the texture under {@code name}; returns its id or {@code null}. */
+    Object upload(String name);
+  }
+
+  private final Consumer<Object> releaser;
+  private final Map<String, Entry> bySource = new HashMap<>();
+  private final Map<Object, Entry> byTexture = new HashMap<>();
+
+  CapeTextureRegistry(Consumer<Object> releaser) {
+    this.releaser = releaser;
+  }
+
+  /** Returns the texture for {@code sourceKey}, uploading it on first use, and takes a reference. */
+  synchronized Object acquire(String sourceKey, Uploader uploader) {
+    final Entry existing = bySource.get(sourceKey);
+    if (existing != null) {
+      existing.refs++;
+      return existing.textureId;
+    }
+    final Object textureId = uploader.upload(textureName(sourceKey));
+    if (textureId == null) return null;
+    final Entry entry = new Entry(sourceKey, textureId);
+    bySource.put(sourceKey, entry);
+    byTexture.put(textureId, entry);
+    return textureId;
+  }
+
+  /** Drops one reference to {@code textureId}; the last one releases the texture. */
+  synchronized void release(Object textureId) {
+    if (textureId == null) return;
+    final Entry entry = byTexture.get(textureId);
+    if (entry == null || --entry.refs > 0) return;
+    bySource.remove(entry.sourceKey);
+    byTexture.remove(textureId);
+    try {
+      releaser.accept(textureId);
+    } catch (Throwable t) {
+      CapeLog.warn("texture.releaseFailed", "failed to release cape texture", "textureId", textureId, "error", t);
+    }
+  }
+
+  synchronized int liveTextures() {
+    return bySource.size();
+  }
+
+  // Collision-free, identifier-safe name per source (lowercase hex only).
+  static String textureName(String sourceKey) {
+    return "launcher_cape/" + CapeDiskCache.sha256Hex(sourceKey.getBytes(StandardCharsets.UTF_8)).substring(0, 32);
+  }
+
+  private static final class Entry {
+    final String sourceKey;
+    final Object textureId;
+    int refs = 1;
+
+    Entry(String sourceKey, Object textureId) {
+      this.sourceKey = sourceKey;
+      this.textureId = textureId;
+    }
+  }
+}
@@ -0,0 +1,192 @@
+package app.fishbattery.capebridge;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.imageio.ImageIO;
+
+// Cape previews for the selector screen: the cape's front face (10x16 texels of the 64x32 layout,
+// box-filtered down from HD capes) decoded with ImageIO on a small worker pool from the local file
+// or the disk cache, never from the network. Finished previews sit in a bounded LRU as plain ARGB pixels and
+// are drawn with the GUI fill primitive, which every supported version has in some shape, instead
+// of a registered texture whose blit API changes between versions. Cleared when the selector closes.
+final class CapeThumbnails {
+  static final int WIDTH = 10;
+  static final int HEIGHT = 16;
+  private static final int MAX_ENTRIES = 96;
+  private static final int[] FAILED = new int[0];
+
+  private final ExecutorService pool = Executors.newFixedThreadPool(2, CapeHttpFetcher.daemonThreads("fishbattery-cape-thumb"));
+  private final Map<String, Entry> entries = new LinkedHashMap<String, Entry>(32, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+      return size() > MAX_ENTRIES;
+    }
+  };
+  private volatile Class<?> fillGraphicsClass = null;
+  private volatile MethodHandle fill = null;
+  private boolean loggedMissingFill = false;
+
+  /** Cache key for {@code option}'s preview; callers compute it once per row, not per frame. */
+  static String keyOf(LauncherCapeRuntime.CapeOption option) {
+    return option.id + "\n" + option.fullPath + "\n" + option.cloudUrl;
+  }
+
+  /**
+   * Non-blocking: the preview pixels for {@code option} (cached under {@code key}, see
+   * {@link #keyOf}), or {@code null} while decoding or when there is none.
+   */
+  int[] get(String key, LauncherCapeRuntime.CapeOption option) {
+    final Entry entry;
+    synchronized (entries) {
+      final Entry existing = entries.get(key);
+      if (existing != null) {
+        final int[] pixels = existing.pixels;
+        return pixels == FAILED ? null : pixels;
+      }
+      entry = new Entry();
+      entries.put(key, entry);
+    }
+    try {
+      pool.execute(() -> entry.pixels = decode(option));
+    } catch (Exception e) {
+      entry.pixels = FAILED;
+    }
+    return null;
+  }
+
+  void clear() {
+    synchronized (entries) {
+      entries.clear();
+    }
+  }
+
+  private static int[] decode(LauncherCapeRuntime.CapeOption option) {
+    try {
+      final byte[] bytes = LauncherCapeRuntime.previewBytes(option.fullPath, option.cloudUrl);
+      if (bytes == null) return FAILED;
+      final BufferedImage image = ImageIO.read(new ByteArrayInputStream(bytes));
+      if (image == null) return FAILED;
+      // Front face sits at (1,1) in 64x32 units; HD capes scale the whole layout.
+      final int scale = Math.max(1, image.getWidth() / 64);
+      if ((1 + WIDTH) * scale > image.getWidth() || (1 + HEIGHT) * scale > image.getHeight()) return FAILED;
+      final int[] out = new int[WIDTH * HEIGHT];
+      for (int ty = 0; ty < HEIGHT; ty++) {
+        for (int tx = 0; tx < WIDTH; tx++) {
+          out[ty * WIDTH + tx] = average(image, (1 + tx) * scale, (1 + ty) * scale, scale);
+        }
+      }
+      return out;
+    } catch (Throwable t) {
+      return FAILED;
+    }
+  }
+
+  private static int average(BufferedImage image, int x0, int y0, int size) {
+    if (size == 1) return image.getRGB(x0, y0);
+    long a = 0, r = 0, g = 0, b = 0;
+    for (int y = y0; y < y0 + size; y++) {
+      for (int x = x0; x < x0 + size; x++) {
+        final int c = image.getRGB(x, y);
+        final int alpha = c >>> 24;
+        a += alpha;
+        // Alpha-weighted so transparent texels don't darken the edges.
+        r += ((c >> 16) & 0xFF) * alpha;
+        g += ((c >> 8) & 0xFF) * alpha;
+        b += (c & 0xFF) * alpha;
+      }
+    }
+    if (a == 0) return 0;
+    final int n = size * size;
+    return (int) (a / n) << 24 | (int) (r / a) << 16 | (int) (g / a) << 8 | (int) (b / a);
+  }
+
+  // -------------------------
+  // Drawing
+  // -------------------------
+
+  /**
+   * Draws {@code pixels} at (x, y), one GUI pixel per texel, merging runs of equal color into a
+   * single fill. {@code graphics} is whatever the screen's render method received (GuiGraphics,
+   * or a PoseStack on versions that still fill through static GuiComponent helpers).
+   */
+  void draw(Object graphics, Object screen, int[] pixels, int x, int y) {
+    final MethodHandle handle = fillFor(graphics, screen);
+    if (handle == null) return;
+    try {
+      for (int ty = 0; ty < HEIGHT; ty++) {
+        int tx = 0;
+        while (tx < WIDTH) {
+          final int color = pixels[ty * WIDTH + tx];
+          int end = tx + 1;
+          while (end < WIDTH && pixels[ty * WIDTH + end] == color) end++;
+          if ((color >>> 24) != 0) {
+            handle.invokeExact(graphics, (Object) (x + tx), (Object) (y + ty), (Object) (x + end), (Object) (y + ty + 1), (Object) color);
+          }
+          tx = end;
+        }
+      }
+    } catch (Throwable ignored) {}
+  }
+
+  // fill(x1, y1, x2, y2, argb) on the graphics object (1.20+), or the static
+  // fill(poseStack, x1, y1, x2, y2, argb) inherited by screens before that.
+  private MethodHandle fillFor(Object graphics, Object screen) {
+    if (graphics == null) return null;
+    if (fillGraphicsClass == graphics.getClass()) return fill;
+    MethodHandle found = null;
+    try {
+      final Method instance = findFill(graphics.getClass(), false, null);
+      if (instance != null) {
+        instance.setAccessible(true);
+        found = MethodHandles.lookup().unreflect(instance).asType(fillType());
+      } else if (screen != null) {
+        final Method legacy = findFill(screen.getClass(), true, graphics.getClass());
+        if (legacy != null) {
+          legacy.setAccessible(true);
+          found = MethodHandles.lookup().unreflect(legacy).asType(fillType());
+        }
+      }
+    } catch (Throwable ignored) {}
+    if (found == null && !loggedMissingFill) {
+      loggedMissingFill = true;
+      CapeLog.warn("thumbnails.noFill", "no fill primitive; cape previews disabled", "graphics", graphics.getClass().getName());
+    }
+    fill = found;
+    fillGraphicsClass = graphics.getClass();
+    return found;
+  }
+
+  private static MethodType fillType() {
+    return MethodType.methodType(void.class, Object.class, Object.class, Object.class, Object.class, Object.class, Object.class);
+  }
+
+  private static Method findFill(Class<?> owner, boolean isStatic, Class<?> graphicsClass) {
+    for (Class<?> c = owner; c != null && c != Object.class; c = c.getSuperclass()) {
+      for (Method m : c.getDeclaredMethods()) {
+        if (!m.getName().equals("fill") && !m.getName().equals("method_25294")) continue;
+        if (Modifier.isStatic(m.getModifiers()) != isStatic || m.getReturnType() != void.class) continue;
+        final Class<?>[] p = m.getParameterTypes();
+        final int first = isStatic ? 1 : 0;
+        if (p.length != 5 + first) continue;
+        if (isStatic && !p[0].isAssignableFrom(graphicsClass)) continue;
+        boolean allInts = true;
+        for (int i = first; i < p.length; i++) allInts &= p[i] == int.class;
+        if (allInts) return m;
+      }
+    }
+    return null;
+  }
+
+  private static final class Entry {
+    volatile int[] pixels = null;
+  }
+}
@@ -5,6 +5,10 @@ import net.fabricmc.api.ClientModInitializer;
 public final class FishbatteryCapeBridgeClient implements ClientModInitializer {
   @Override
   public void onInitializeClient() {
-    // Behavior is mixin-driven.
+    // Behavior is mixin-driven; init only warms the cape pipeline up off-thread (source, signature,
+    // decode, reflection) so the first render hook just uploads.
+    final Thread warmUp = new Thread(LauncherCapeRuntime::warmUp, "fishbattery-cape-warmup");
+    warmUp.setDaemon(true);
+    warmUp.start();
   }
 }
@@ -1,34 +1,29 @@
 package app.fishbattery.capebridge;
 
-<<<<<<< HEAD
-import net.minecraft.client.MinecraftClient;
-import net.minecraft.client.texture.NativeImage;
-
-import java.io.IOException;
-import java.io.InputStream;
-import java.lang.reflect.Constructor;
-=======
 import com.mojang.blaze3d.platform.NativeImage;
+import net.minecraft.client.Minecraft;
+
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
->>>>>>> origin/main
+import java.lang.reflect.Member;
 import java.lang.reflect.Method;
-import java.net.HttpURLConnection;
-import java.net.URI;
-import java.net.URL;
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-<<<<<<< HEAD
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Supplier;
 
-import java.lang.reflect.RecordComponent;
-
-
 public final class LauncherCapeRuntime {
   private static final String CAPE_PATH_PROPERTY = "fishbattery.launcherCape.path";
   private static final String CAPE_URL_PROPERTY  = "fishbattery.launcherCape.url";
@@ -38,65 +33,88 @@ public final class LauncherCapeRuntime {
   private static final String CAPE_META_PROPERTY    = "fishbattery.launcherCape.meta";
   private static final String PLAYER_UUID_PROPERTY  = "fishbattery.launcherPlayer.uuid";
 
+  private static final long FILE_RECHECK_NANOS = 1_000_000_000L;
+  private static final long FAILED_SOURCE_RETRY_NANOS = 30_000_000_000L;
+  private static final long UUID_RESCAN_NANOS = 1_000_000_000L;
+
+  private static final CapeHttpFetcher HTTP_FETCHER = new CapeHttpFetcher(CapeDiskCache.openDefault(), LauncherCapeRuntime::onRemoteCapeUpdated);
+
+  private static final CapeFileWatcher FILE_WATCHER = CapeFileWatcher.start();
+  private static final CapeSelectionWriter SELECTION_WRITER = CapeSelectionWriter.withDefaultDelay();
+
+  private static final CapeTextureRegistry TEXTURES = new CapeTextureRegistry(LauncherCapeRuntime::releaseRegisteredTexture);
+  private static final CapeImageLimits IMAGE_LIMITS = CapeImageLimits.fromSystemProperties();
+
+  private static final WeakIdentityCache<UUID> PROFILE_UUIDS = new WeakIdentityCache<>();
+
+  // Hot-path metrics are held directly so recording never goes through the registry map.
+  private static final CapeMetrics.Histogram CAPE_TEXTURE_LATENCY = CapeMetrics.histogram("runtime.capeTexture");
+  private static final CapeMetrics.Histogram CAPE_TEXTURE_ID_LATENCY = CapeMetrics.histogram("runtime.capeTextureId");
+  private static final CapeMetrics.Histogram REPLACE_SKIN_LATENCY = CapeMetrics.histogram("runtime.replaceSkin");
+  private static final CapeMetrics.Histogram DECODE_LATENCY = CapeMetrics.histogram("pipeline.decode");
+  private static final CapeMetrics.Histogram UPLOAD_LATENCY = CapeMetrics.histogram("pipeline.upload");
+  private static final LongAdder LOCAL_TEXTURE_HITS = CapeMetrics.counter("cache.localTexture.hit");
+  private static final LongAdder LOCAL_TEXTURE_MISSES = CapeMetrics.counter("cache.localTexture.miss");
+  private static final LongAdder SHARED_CAPE_HITS = CapeMetrics.counter("cache.sharedCape.hit");
+  private static final LongAdder SHARED_CAPE_MISSES = CapeMetrics.counter("cache.sharedCape.miss");
+  private static final LongAdder SKIN_MEMO_HITS = CapeMetrics.counter("cache.skinMemo.hit");
+  private static final LongAdder SKIN_MEMO_MISSES = CapeMetrics.counter("cache.skinMemo.miss");
+  private static final LongAdder PROFILE_UUID_HITS = CapeMetrics.counter("cache.profileUuid.hit");
+  private static final LongAdder PROFILE_UUID_MISSES = CapeMetrics.counter("cache.profileUuid.miss");
+  private static final LongAdder CATALOG_REUSED = CapeMetrics.counter("cache.catalog.reused");
+  private static final LongAdder CATALOG_RELOADED = CapeMetrics.counter("cache.catalog.reloaded");
+  private static final Map<Class<?>, UuidExtractor> UUID_EXTRACTORS = new ConcurrentHashMap<>();
+
+  private static volatile SourceSnapshot sourceSnapshot = null;
+  private static volatile CapeCatalog catalogSnapshot = CapeCatalog.EMPTY;
+  private static volatile int catalogGeneration = 0;
+  private static volatile int catalogCheckedGeneration = -1;
+  private static volatile long catalogRecheckAtNanos = 0L;
+  private static volatile ResolvedPath resolvedCatalogPath = null;
+  private static String watchedCapePath = null;
+  private static boolean capeFilesWatched = false;
+  private static Path watchedCatalogPath = null;
+  private static boolean catalogWatched = false;
   private static String cachedSourceKey = "";
+  private static String failedSourceKey = "";
   private static Object cachedTextureId = null;      // usually Identifier
   private static Object cachedCapeAsset = null;      // ClientAsset wrapper (if needed)
-  private static String cachedLocalUuidRaw = "";
-  private static UUID cachedLocalUuid = null;
+  private static CapeAnimation cachedAnimation = null;
+  // The launcherPlayer.uuid prop, re-read with the other launcher props rather than per hook.
+  private static volatile boolean localPlayerUuidLoaded = false;
+  private static volatile UUID localPlayerUuid = null;
   private static boolean loggedTextureRegistrationDiagnostics = false;
   private static String lastLoggedPropsKey = "";
   private static boolean loggedRejectedRegistrationMethod = false;
   private static boolean loggedUnusableRegistrationValue = false;
   private static boolean loggedIdentifierCreationFailure = false;
-  private static boolean loggedRecordCapeFallback = false;
-  private static boolean loggedSkinReplaceSuccess = false;
   private static boolean loggedSkinReplaceFailure = false;
-=======
-import java.util.ArrayList;
-import java.util.Base64;
-import java.util.Collections;
-import java.util.IdentityHashMap;
-import java.util.List;
-import java.util.Locale;
-import java.util.Map;
-import java.util.UUID;
-import java.util.function.Supplier;
-import net.minecraft.client.Minecraft;
-import net.minecraft.client.renderer.texture.DynamicTexture;
-
-public final class LauncherCapeRuntime {
-  private static final String CAPE_PATH_PROPERTY = "fishbattery.launcherCape.path";
-  private static final String CAPE_URL_PROPERTY = "fishbattery.launcherCape.url";
-  private static final String CAPE_ID_PROPERTY = "fishbattery.launcherCape.id";
-  private static final String CAPE_TIER_PROPERTY = "fishbattery.launcherCape.tier";
-  private static final String CAPE_CATALOG_PROPERTY = "fishbattery.launcherCape.catalog";
-  private static final String CAPE_META_PROPERTY = "fishbattery.launcherCape.meta";
-  private static final String PLAYER_UUID_PROPERTY = "fishbattery.launcherPlayer.uuid";
-
-  private static String cachedSourceKey = "";
-  private static Object cachedTextureId = null;
-  private static Object cachedCapeTexture = null;
-  private static String cachedLocalUuidRaw = "";
-  private static UUID cachedLocalUuid = null;
->>>>>>> origin/main
+  // Picked once when this class initializes (the warm-up thread, at client init); benchmarks swap it.
+  private static CapeTextureBackend backend = CapeTextureBackends.select();
+  // Benchmarks only; otherwise the client's own TextureManager is used.
+  private static volatile Object standInTextureManager = null;
 
   private LauncherCapeRuntime() {}
 
+  static {
+    FILE_WATCHER.addListener(CapeFileWatcher.Topic.CAPE, LauncherCapeRuntime::recheckCapeSource);
+    FILE_WATCHER.addListener(CapeFileWatcher.Topic.CATALOG, LauncherCapeRuntime::invalidateCatalog);
+    FILE_WATCHER.addListener(CapeFileWatcher.Topic.META, LauncherCapeRuntime::applyExternalMetaSelection);
+    final Path metaPath = resolveMetaPath();
+    if (metaPath != null) FILE_WATCHER.watch(CapeFileWatcher.Topic.META, metaPath);
+    CapeMetrics.startStatsFile();
+  }
+
   public static Object tryGetCapeTextureForLocalPlayer(Object playerInfoLike) {
     try {
       if (!isLocalPlayerProfile(playerInfoLike)) return null;
       return reloadCapeTextureFromSystemProperties();
     } catch (Throwable t) {
-<<<<<<< HEAD
-      System.err.println("[fishbattery_cape_bridge] Failed to load launcher cape: " + t);
-=======
-      System.err.println("[fishbattery_cape_bridge] Failed to load launcher cape: " + t.getMessage());
->>>>>>> origin/main
+      CapeLog.warn("hook.localCape.failed", "failed to load launcher cape", "error", t);
       return null;
     }
   }
 
-<<<<<<< HEAD
   /**
    * Returns the raw texture id/identifier for methods that expect cape texture id directly
    * (e.g. AbstractClientPlayerEntity#getCapeTexture on newer versions).
@@ -104,172 +122,706 @@ public final class LauncherCapeRuntime {
   public static Object tryGetCapeTextureIdForLocalPlayer(Object playerInfoLike) {
     try {
       if (!isLocalPlayerProfile(playerInfoLike)) return null;
-      final Object loaded = reloadCapeTextureFromSystemProperties();
-      if (isUsableTextureIdValue(cachedTextureId)) return cachedTextureId;
-      return isUsableTextureIdValue(loaded) ? loaded : null;
+      return localCapeTextureId();
     } catch (Throwable t) {
-      System.err.println("[fishbattery_cape_bridge] Failed to load launcher cape id: " + t);
+      CapeLog.warn("hook.localCapeId.failed", "failed to load launcher cape id", "error", t);
       return null;
     }
   }
 
   /**
-   * Replaces cape component inside SkinTextures (record) or similar skin object.
-   * Works for:
-   * - record SkinTextures( ... cape... )
-   * - non-record constructor-based skins
+   * Cape for any player: the launcher selection for the local player, otherwise the cape
+   * assigned to the player's uuid in the player cape table (if any). An assigned player always
+   * gets the table's cape; an unassigned one falls back to the launcher selection only when it
+   * can't be told apart from the local player.
    */
-  public static Object tryReplaceCapeOnSkin(Object skinLike, Object newCapeValue) {
-    if (skinLike == null || newCapeValue == null) return null;
+  public static Object tryGetCapeTextureForPlayer(Object playerInfoLike) {
+    final long started = System.nanoTime();
+    try {
+      final UUID uuid = profileUuidOf(playerInfoLike);
+      final String assigned = assignedCapeId(uuid);
+      if (assigned != null) return sharedCapeTexture(assigned);
+      return isLocalPlayerUuid(uuid) ? reloadCapeTextureFromSystemProperties() : null;
+    } catch (Throwable t) {
+      CapeLog.warn("hook.playerCape.failed", "failed to load player cape", "error", t);
+      return null;
+    } finally {
+      CAPE_TEXTURE_LATENCY.since(started);
+    }
+  }
 
+  /** Texture id variant of {@link #tryGetCapeTextureForPlayer(Object)}. */
+  public static Object tryGetCapeTextureIdForPlayer(Object playerInfoLike) {
+    final long started = System.nanoTime();
     try {
-      // Record path (SkinTextures is a record in 1.21+)
-      if (skinLike.getClass().isRecord()) {
-        Object out = tryReplaceCapeOnRecordSkin(skinLike, newCapeValue);
-        if (out != null) {
-          if (!loggedSkinReplaceSuccess) {
-            loggedSkinReplaceSuccess = true;
-            System.err.println("[fishbattery_cape_bridge] skin replace success via record path: " + skinLike.getClass().getName());
-          }
-          return out;
-        }
+      final UUID uuid = profileUuidOf(playerInfoLike);
+      final String assigned = assignedCapeId(uuid);
+      if (assigned != null) {
+        final Object shared = sharedCapeTexture(assigned);
+        return isUsableTextureIdValue(shared) ? shared : null;
       }
+      return isLocalPlayerUuid(uuid) ? localCapeTextureId() : null;
+    } catch (Throwable t) {
+      CapeLog.warn("hook.playerCapeId.failed", "failed to load player cape id", "error", t);
+      return null;
+    } finally {
+      CAPE_TEXTURE_ID_LATENCY.since(started);
+    }
+  }
 
-      // Non-record fallback (constructor rebuild)
-      final Object currentCape = invokeNoArg(skinLike, "capeTexture", "cape", "getCapeTexture", "capeTextureId");
-      Object replacementCape = coerceToType(
-        currentCape != null ? currentCape.getClass() : null,
-        newCapeValue
-      );
-      if (replacementCape == null) replacementCape = newCapeValue;
-
-      final Object body   = invokeNoArg(skinLike, "texture", "body", "skin", "getTexture");
-      final Object elytra = invokeNoArg(skinLike, "elytraTexture", "elytra", "getElytraTexture");
-      final Object model  = invokeNoArg(skinLike, "model", "modelType", "getModel");
-      final Object secure = invokeNoArg(skinLike, "secure", "isSecure");
-      final Object textureUrl = invokeNoArg(skinLike, "textureUrl", "skinUrl", "url", "getTextureUrl");
-
-      for (Constructor<?> c : skinLike.getClass().getDeclaredConstructors()) {
-        Class<?>[] p = c.getParameterTypes();
-        Object[] args;
-
-        // Common shapes (varies by MC version)
-        if (p.length == 5) {
-          args = new Object[] { body, replacementCape, elytra, model, secure };
-        } else if (p.length == 6) {
-          args = new Object[] { body, textureUrl != null ? textureUrl : "", replacementCape, elytra, model, secure };
-        } else {
-          continue;
-        }
+  private static Object localCapeTextureId() {
+    final Object loaded = reloadCapeTextureFromSystemProperties();
+    if (loaded == null) return null;
+    if (isUsableTextureIdValue(cachedTextureId)) return cachedTextureId;
+    return isUsableTextureIdValue(loaded) ? loaded : null;
+  }
 
-        if (!parametersMatch(p, args)) continue;
-        try {
-          c.setAccessible(true);
-          Object out = c.newInstance(args);
-          if (!loggedSkinReplaceSuccess) {
-            loggedSkinReplaceSuccess = true;
-            System.err.println("[fishbattery_cape_bridge] skin replace success via ctor path: " + skinLike.getClass().getName());
-          }
-          return out;
-        } catch (Throwable ignored) {}
-      }
-    } catch (Throwable ignored) {}
+  /**
+   * Replaces the cape (and elytra) texture inside the version's skin record (PlayerSkin /
+   * SkinTextures), via the selected {@link CapeTextureBackend}.
+   */
+  public static Object tryReplaceCapeOnSkin(Object skinLike, Object newCapeValue) {
+    if (skinLike == null || newCapeValue == null) return null;
+    final long started = System.nanoTime();
+
+    // Render hooks ask for the same (skin, cape) pair every frame; answer from the memo.
+    final Object memoized = lookupSkinMemo(skinLike, newCapeValue);
+    if (memoized != null) {
+      SKIN_MEMO_HITS.increment();
+      REPLACE_SKIN_LATENCY.since(started);
+      return memoized;
+    }
+    SKIN_MEMO_MISSES.increment();
 
-    if (!loggedSkinReplaceFailure) {
+    final Object out = backend.replaceCape(skinLike, newCapeValue);
+    if (out != null) {
+      rememberSkinMemo(skinLike, newCapeValue, out);
+    } else if (!loggedSkinReplaceFailure) {
       loggedSkinReplaceFailure = true;
-      System.err.println("[fishbattery_cape_bridge] skin replace failed for type: " + skinLike.getClass().getName() + " capeType=" + newCapeValue.getClass().getName());
+      CapeLog.warn("skinReplace.failed", "skin replace failed", "backend", backend.id(),
+        "skinType", skinLike.getClass().getName(), "capeType", newCapeValue.getClass().getName());
     }
-    return null;
+    REPLACE_SKIN_LATENCY.since(started);
+    return out;
   }
 
   // -------------------------
-  // Cape loading + registering
+  // Skin replacement memo
   // -------------------------
+  // Identity-keyed input skin -> (cape value, replaced skin). With capes shown for every player
+  // there is one live entry per visible player; keys are weak, so skins that are dropped by the
+  // game drop out of the memo, and lookups don't allocate.
 
-  private static Object reloadCapeTextureFromSystemProperties() {
-    final String rawPath = String.valueOf(System.getProperty(CAPE_PATH_PROPERTY, System.getProperty("fishbattery.cape.path", ""))).trim();
-    final String rawUrl  = String.valueOf(System.getProperty(CAPE_URL_PROPERTY, "")).trim();
+  private static final WeakIdentityCache<SkinMemo> SKIN_MEMO = new WeakIdentityCache<>();
 
-    final String propsKey = rawPath + "|" + rawUrl;
-    if (!propsKey.equals(lastLoggedPropsKey)) {
-      System.err.println("[fishbattery_cape_bridge] launcher props: path='" + rawPath + "' url='" + rawUrl + "'");
-      lastLoggedPropsKey = propsKey;
+  private static Object lookupSkinMemo(Object skinLike, Object capeValue) {
+    final SkinMemo memo = SKIN_MEMO.get(skinLike);
+    if (memo == null || memo.cape != capeValue) return null;
+    return memo.replaced == null ? skinLike : memo.replaced;
+  }
+
+  private static void rememberSkinMemo(Object skinLike, Object capeValue, Object replaced) {
+    SKIN_MEMO.put(skinLike, new SkinMemo(capeValue, replaced));
+    // Hooks can be chained, so the skin we rebuilt may come back in; it maps to itself. The value
+    // must not reference its own (weak) key, hence null for "self".
+    SKIN_MEMO.put(replaced, new SkinMemo(capeValue, null));
+  }
+
+  private static final class SkinMemo {
+    final Object cape;
+    final Object replaced; // null: the key itself
+
+    SkinMemo(Object cape, Object replaced) {
+      this.cape = cape;
+      this.replaced = replaced;
     }
+  }
 
-    final CapeSource source = resolveCapeSource(rawPath, rawUrl);
+  // -------------------------
+  // Cape loading + registering
+  // -------------------------
+
+  private static Object reloadCapeTextureFromSystemProperties() {
+    final SourceSnapshot snapshot = currentSourceSnapshot();
+    final CapeSource source = snapshot.source;
     if (source == null) {
-      System.err.println("[fishbattery_cape_bridge] resolved cape source is null");
+      // While a remote cape downloads keep showing whatever was registered before (if anything).
+      if (snapshot.remotePending && (cachedCapeAsset != null || isUsableTextureIdValue(cachedTextureId))) {
+        return cachedLocalTexture();
+      }
+      releaseLocalTexture();
       return null;
     }
 
     if (source.cacheKey.equals(cachedSourceKey) && (cachedCapeAsset != null || isUsableTextureIdValue(cachedTextureId))) {
       // Return cached (Identifier or ClientAsset depending what we have)
-      return cachedCapeAsset != null ? cachedCapeAsset : cachedTextureId;
+      LOCAL_TEXTURE_HITS.increment();
+      return cachedLocalTexture();
     }
+    LOCAL_TEXTURE_MISSES.increment();
+    // A source that already failed to verify/decode/register stays failed until its inputs change.
+    if (source.cacheKey.equals(failedSourceKey)) return null;
+    // The warm-up thread is decoding this very source; skip a few frames rather than decode it twice.
+    if (source.cacheKey.equals(warmingSourceKey)) return null;
 
-    final MinecraftClient mc = MinecraftClient.getInstance();
-    if (mc == null) return null;
-
-    final Object textureManager = mc.getTextureManager();
+    final Object textureManager = currentTextureManager();
     if (textureManager == null) return null;
 
-    // Signature gate for premium/founder
-    final String tier = String.valueOf(System.getProperty(CAPE_TIER_PROPERTY, "")).trim().toLowerCase(Locale.ROOT);
-    if ("premium".equals(tier) || "founder".equals(tier)) {
-      if (!verifyCapeSignatureIfPresent(source, rawPath)) {
-        System.err.println("[fishbattery_cape_bridge] premium cape signature missing or invalid");
-        return null;
-      }
+    final long acquireStarted = System.nanoTime();
+    final String rawPath = snapshot.rawPath;
+    final Object registeredId = acquireCapeTexture(textureManager, source, snapshot.tier, () -> readLocalCapeSignature(rawPath), selectedFrameMillis());
+    // Whatever the warm-up prepared has been uploaded by now, or belongs to an older source.
+    discardPreparedCape();
+    if (registeredId == null) {
+      failedSourceKey = source.cacheKey;
+      releaseLocalTexture();
+      return null;
+    }
+
+    // Acquire before releasing: re-selecting the same source must not drop it in between.
+    final Object previous = cachedTextureId;
+    cachedSourceKey = source.cacheKey;
+    cachedTextureId = registeredId;
+    cachedCapeAsset = null;
+    cachedAnimation = ANIMATIONS.get(registeredId);
+    TEXTURES.release(previous);
+
+    CapeLog.info("texture.registered", "registered cape", "capeId", getSelectedCapeId(), "source", source.kind(), "textureId", registeredId,
+      "latencyMs", (System.nanoTime() - acquireStarted) / 1_000_000L);
+    return cachedTextureId;
+  }
+
+  // The registered local cape, after stepping its animation (if any) to the current frame.
+  private static Object cachedLocalTexture() {
+    final CapeAnimation animation = cachedAnimation;
+    if (animation != null) animation.advance(System.nanoTime());
+    return cachedCapeAsset != null ? cachedCapeAsset : cachedTextureId;
+  }
+
+  private static void releaseLocalTexture() {
+    final Object previous = cachedTextureId;
+    cachedSourceKey = "";
+    cachedTextureId = null;
+    cachedCapeAsset = null;
+    cachedAnimation = null;
+    TEXTURES.release(previous);
+  }
+
+  // Animated and still uploads of the same bytes are different textures. `signature` is only
+  // read for premium/founder tiers: the local cape's launcher prop or sidecar, or a catalog option's.
+  private static Object acquireCapeTexture(Object textureManager, CapeSource source, String tier, Supplier<byte[]> signature, int frameMillis) {
+    final String key = frameMillis > 0 ? source.cacheKey + "#frames:" + frameMillis : source.cacheKey;
+    return TEXTURES.acquire(key, (name) -> decodeAndRegister(textureManager, source, tier, signature, frameMillis, name));
+  }
+
+  // Frame time the catalog gives the selected cape; only read when its texture is (re)registered.
+  private static int selectedFrameMillis() {
+    final CapeOption option = currentCatalog().find(getSelectedCapeId());
+    return option == null ? 0 : option.frameMillis;
+  }
+
+  private static Object currentTextureManager() {
+    final Object standIn = standInTextureManager;
+    if (standIn != null) return standIn;
+    final Minecraft mc = Minecraft.getInstance();
+    return mc == null ? null : mc.getTextureManager();
+  }
+
+  // Signature gate, decode and upload for one cape source. Returns the registered texture id, or
+  // null when the source is rejected or fails; the caller decides how long that failure sticks.
+  private static Object decodeAndRegister(Object textureManager, CapeSource source, String tier, Supplier<byte[]> signature, int frameMillis, String textureName) {
+    // Decoded (and verified) ahead of time by the warm-up: only the upload is left.
+    final NativeImage prepared = takePreparedCape(source.cacheKey);
+    if (prepared != null) return registerDecoded(textureManager, textureName, prepared, frameMillis);
+
+    // Signature gate for premium/founder: verified on a worker while the image decodes here.
+    final boolean signed = "premium".equals(tier) || "founder".equals(tier);
+    final CompletableFuture<Boolean> signatureCheck = signed
+      ? SIGNATURES.verifyAsync(source.bytes, signature)
+      : null;
+
+    // Header and size gate before anything is decoded into native memory.
+    final String rejected = IMAGE_LIMITS.rejectReason(source.bytes);
+    if (rejected != null) {
+      CapeLog.warn("image.rejected", "rejected cape image", "reason", rejected, "source", source.kind());
+      return null;
     }
 
     final NativeImage nativeImage;
+    final long decodeStarted = System.nanoTime();
     try {
-      nativeImage = readNativeImage(source.stream);
+      nativeImage = downscaleForUpload(readNativeImage(source.openStream()));
+      DECODE_LATENCY.since(decodeStarted);
     } catch (IOException e) {
-      System.err.println("[fishbattery_cape_bridge] Failed to read native image: " + e.getMessage());
+      CapeLog.warn("image.readFailed", "failed to read native image", "source", source.kind(), "error", e.getMessage());
       return null;
     }
     if (nativeImage == null) {
-      System.err.println("[fishbattery_cape_bridge] nativeImage == null");
+      CapeLog.warn("image.decodeFailed", "cape image did not decode", "source", source.kind());
+      return null;
+    }
+    if (signatureCheck != null && !signatureCheck.join()) {
+      CapeLog.warn("signature.invalid", "premium cape signature missing or invalid", "tier", tier, "source", source.kind());
+      nativeImage.close();
       return null;
     }
+    return registerDecoded(textureManager, textureName, nativeImage, frameMillis);
+  }
+
+  private static Object registerDecoded(Object textureManager, String textureName, NativeImage nativeImage, int frameMillis) {
+    // An animated strip is cut into frames here, once; only a single frame is registered.
+    final CapeAnimation animation = frameMillis > 0 ? CapeAnimation.cut(nativeImage, frameMillis, NativeImageResize.HANDLE) : null;
+    final NativeImage upload;
+    if (animation != null) {
+      nativeImage.close();
+      upload = animation.target;
+    } else {
+      upload = nativeImage;
+    }
 
     // Use the *real* registerDynamicTexture API (no random boolean return type)
-    final Object registeredId = registerDynamicTexture(textureManager, "launcher_cape/" + Integer.toHexString(source.cacheKey.hashCode()), nativeImage);
+    Object registeredId = null;
+    final long uploadStarted = System.nanoTime();
+    try {
+      registeredId = registerDynamicTexture(textureManager, textureName, upload);
+    } catch (Throwable ignored) {}
+    UPLOAD_LATENCY.since(uploadStarted);
     if (!isUsableTextureIdValue(registeredId)) {
       if (!loggedUnusableRegistrationValue) {
         loggedUnusableRegistrationValue = true;
-        System.err.println("[fishbattery_cape_bridge] registerDynamicTexture returned unusable value: " + registeredId);
+        CapeLog.warn("registration.unusable", "registerDynamicTexture returned unusable value", "value", registeredId);
       }
+      // No texture owns the image, so its native memory is ours to free (close is idempotent).
+      upload.close();
+      if (animation != null) animation.close();
       return null;
     }
+    if (animation != null) {
+      if (animation.attach(registeredTexture(textureManager, registeredId))) {
+        ANIMATIONS.put(registeredId, animation);
+        CapeLog.info("animation.registered", "registered animated cape", "textureId", registeredId,
+          "frames", animation.frameCount(), "frameMs", frameMillis);
+      } else {
+        animation.close();
+      }
+    }
+    return registeredId;
+  }
 
-    cachedSourceKey = source.cacheKey;
-    cachedTextureId = registeredId;
-    cachedCapeAsset = null;
+  // The texture object behind a registered id, for animations that re-upload into it.
+  private static Object registeredTexture(Object textureManager, Object textureId) {
+    final MethodHandle getter = findTextureManagerMethod(textureManager.getClass(), textureId.getClass(), GET_TEXTURE_METHOD_NAMES);
+    if (getter == null) return null;
+    try {
+      return (Object) getter.invokeExact(textureManager, textureId);
+    } catch (Throwable t) {
+      return null;
+    }
+  }
 
-    System.err.println("[fishbattery_cape_bridge] registered cape textureId=" + registeredId);
-    return cachedTextureId;
+  // -------------------------
+  // Warm-up
+  // -------------------------
+  // Started from onInitializeClient on its own thread (which also runs this class's static init):
+  // resolves the cape source, verifies and decodes it, parses the catalog and, once the texture
+  // manager exists, compiles the class-keyed reflection (method tables, identifier factory,
+  // texture releaser). The decoded image is parked here keyed by source, and the first render
+  // hook only uploads it. Registration itself is probed on the render thread, since probing
+  // registers a texture.
+  private static final long WARM_UP_MANAGER_WAIT_NANOS = 60_000_000_000L;
+  private static final AtomicReference<PreparedCape> PREPARED_CAPE = new AtomicReference<>();
+  private static volatile String warmingSourceKey = "";
+
+  static void warmUp() {
+    final long started = System.nanoTime();
+    try {
+      currentCatalog();
+      final SourceSnapshot snapshot = currentSourceSnapshot();
+      if (snapshot.source != null) prepareCape(snapshot.source, snapshot.tier, snapshot.rawPath);
+
+      // Class init of the resize lookup is a full method scan of NativeImage.
+      final boolean canResize = NativeImageResize.HANDLE != null;
+      Object textureManager = currentTextureManager();
+      while (textureManager == null && System.nanoTime() - started < WARM_UP_MANAGER_WAIT_NANOS) {
+        Thread.sleep(50L);
+        textureManager = currentTextureManager();
+      }
+      if (textureManager != null) warmTextureReflection(textureManager);
+      CapeLog.info("warmUp.done", "cape warm-up done", "latencyMs", (System.nanoTime() - started) / 1_000_000L,
+        "prepared", PREPARED_CAPE.get() != null, "resize", canResize);
+    } catch (Throwable t) {
+      CapeLog.warn("warmUp.failed", "cape warm-up failed", "error", t);
+    }
+  }
+
+  // Same gates as decodeAndRegister; anything it rejects is left for the render thread to
+  // reject again (and log) so the failure bookkeeping stays in one place.
+  private static void prepareCape(CapeSource source, String tier, String rawPath) {
+    warmingSourceKey = source.cacheKey;
+    NativeImage image = null;
+    try {
+      final boolean signed = "premium".equals(tier) || "founder".equals(tier);
+      if (signed && !SIGNATURES.verify(source.bytes, readLocalCapeSignature(rawPath))) return;
+      if (IMAGE_LIMITS.rejectReason(source.bytes) != null) return;
+      final long decodeStarted = System.nanoTime();
+      image = downscaleForUpload(readNativeImage(source.openStream()));
+      DECODE_LATENCY.since(decodeStarted);
+      if (image == null) return;
+      // The render thread got there first (no warm-up key yet); nothing left to prepare.
+      if (source.cacheKey.equals(cachedSourceKey)) return;
+      final PreparedCape previous = PREPARED_CAPE.getAndSet(new PreparedCape(source.cacheKey, image));
+      image = null;
+      if (previous != null) previous.image.close();
+    } catch (Exception e) {
+      CapeLog.warn("warmUp.decodeFailed", "cape warm-up decode failed", "source", source.kind(), "error", e);
+    } finally {
+      if (image != null) image.close();
+      // Cleared after the hand-off, so a render hook sees either the key or the prepared image.
+      warmingSourceKey = "";
+    }
+  }
+
+  private static NativeImage takePreparedCape(String sourceKey) {
+    final PreparedCape prepared = PREPARED_CAPE.get();
+    if (prepared == null || !prepared.sourceKey.equals(sourceKey)) return null;
+    return PREPARED_CAPE.compareAndSet(prepared, null) ? prepared.image : null;
+  }
+
+  private static void discardPreparedCape() {
+    final PreparedCape stale = PREPARED_CAPE.getAndSet(null);
+    if (stale != null) stale.image.close();
+  }
+
+  private static void warmTextureReflection(Object textureManager) {
+    final Class<?> managerClass = textureManager.getClass();
+    for (Method m : allMethods(managerClass)) {
+      for (Class<?> p : m.getParameterTypes()) {
+        if (p != backend.identifierClass()) continue;
+        newIdentifier(p, "fishbattery", "warmup");
+        if (!TEXTURE_RELEASERS.containsKey(managerClass)) {
+          final MethodHandle releaser = findTextureManagerMethod(managerClass, p, RELEASE_METHOD_NAMES);
+          if (releaser != null) TEXTURE_RELEASERS.putIfAbsent(managerClass, releaser);
+        }
+      }
+    }
+  }
+
+  private static final class PreparedCape {
+    final String sourceKey;
+    final NativeImage image;
+
+    PreparedCape(String sourceKey, NativeImage image) {
+      this.sourceKey = sourceKey;
+      this.image = image;
+    }
+  }
+
+  // Visible for benchmarks: binds the hooks to a backend over stand-in types.
+  static void useBackend(CapeTextureBackend standIn) {
+    backend = standIn;
+  }
+
+  // Visible for benchmarks: registers through a stand-in texture manager when there is no client.
+  static void useTextureManager(Object standIn) {
+    standInTextureManager = standIn;
+  }
+
+  // -------------------------
+  // Shared cape textures (other players)
+  // -------------------------
+  // Every player wearing cape X resolves to the same SharedCape entry, so the image is decoded
+  // and registered once per cape id however many players show it. Entries are re-resolved when
+  // the catalog or a remote cape changes (SHARED_CAPE_GENERATION), and periodically otherwise.
+
+  private static final long SHARED_CAPE_RECHECK_NANOS = 30_000_000_000L;
+  private static final long SHARED_CAPE_PENDING_RECHECK_NANOS = 1_000_000_000L;
+
+  private static final PlayerCapeAssignments PLAYER_CAPES = new PlayerCapeAssignments(FILE_WATCHER);
+  private static final RemoteCapeResolver REMOTE_CAPES = RemoteCapeResolver.fromSystemProperties();
+  private static final Map<String, SharedCape> SHARED_CAPES = new ConcurrentHashMap<>();
+  // Bumped from the fetcher callback as well as the render thread.
+  private static final AtomicInteger SHARED_CAPE_GENERATION = new AtomicInteger();
+
+  // Cape id assigned to a player other than the local one, or null. The local table wins;
+  // players missing from it are batched to the lookup endpoint.
+  private static String assignedCapeId(UUID uuid) {
+    if (uuid == null || uuid.equals(localPlayerUuid())) return null;
+    final String capeId = PLAYER_CAPES.capeIdFor(uuid);
+    if (capeId != null || REMOTE_CAPES == null) return capeId;
+    return REMOTE_CAPES.lookup(uuid);
+  }
+
+  private static Object sharedCapeTexture(String capeId) {
+    // The local selection is already registered; don't upload the same cape a second time.
+    if (capeId.equals(getSelectedCapeId())) {
+      final Object local = reloadCapeTextureFromSystemProperties();
+      if (local != null) return local;
+    }
+
+    SharedCape entry = SHARED_CAPES.get(capeId);
+    if (entry == null) entry = SHARED_CAPES.computeIfAbsent(capeId, SharedCape::new);
+    final long now = System.nanoTime();
+    if (entry.isFresh(SHARED_CAPE_GENERATION.get(), now)) {
+      SHARED_CAPE_HITS.increment();
+      final CapeAnimation animation = entry.animation;
+      if (animation != null) animation.advance(now);
+      return entry.textureId;
+    }
+    SHARED_CAPE_MISSES.increment();
+    return loadSharedCape(entry);
+  }
+
+  private static Object loadSharedCape(SharedCape entry) {
+    synchronized (entry) {
+      final int generation = SHARED_CAPE_GENERATION.get();
+      final long now = System.nanoTime();
+      if (entry.isFresh(generation, now)) return entry.textureId;
+
+      final Object textureManager = currentTextureManager();
+      if (textureManager == null) return entry.textureId;
+
+      final CapeOption option = currentCatalog().find(entry.capeId);
+
+      Object texture = null;
+      boolean pending = false;
+      if (option != null) {
+        final CapeSource source = resolveCapeSource(option.fullPath, option.cloudUrl);
+        if (source == null) {
+          // Remote capes arrive through the fetcher; keep the old texture until they do.
+          pending = isHttpUrl(option.cloudUrl) && HTTP_FETCHER.isPending(option.cloudUrl);
+          if (pending) texture = entry.textureId;
+        } else if (source.cacheKey.equals(entry.sourceKey) && entry.textureId != null) {
+          texture = entry.textureId;
+        } else {
+          texture = acquireCapeTexture(textureManager, source, option.tier, () -> readOptionSignature(option), option.frameMillis);
+          if (texture != null) {
+            entry.sourceKey = source.cacheKey;
+            CapeLog.info("texture.registered.shared", "registered shared cape", "capeId", entry.capeId, "source", source.kind(), "textureId", texture);
+          }
+        }
+      }
+
+      final long recheck;
+      if (pending) recheck = SHARED_CAPE_PENDING_RECHECK_NANOS;
+      else if (texture == null) recheck = FAILED_SOURCE_RETRY_NANOS;
+      else recheck = SHARED_CAPE_RECHECK_NANOS;
+      if (texture == null) entry.sourceKey = "";
+      final Object previous = entry.textureId;
+      entry.textureId = texture;
+      entry.animation = texture == null ? null : ANIMATIONS.get(texture);
+      if (previous != null && previous != texture) TEXTURES.release(previous);
+      entry.recheckAtNanos = now + recheck;
+      entry.generation = generation;
+      return texture;
+    }
+  }
+
+  // Fetcher callback: new bytes for some remote cape, either the local one or a shared one.
+  private static void onRemoteCapeUpdated() {
+    invalidateCapeSource();
+    SHARED_CAPE_GENERATION.incrementAndGet();
+  }
+
+  private static final class SharedCape {
+    final String capeId;
+    volatile Object textureId = null;
+    volatile CapeAnimation animation = null;
+    volatile String sourceKey = "";
+    volatile int generation = -1;
+    volatile long recheckAtNanos = 0L;
+
+    SharedCape(String capeId) {
+      this.capeId = capeId;
+    }
+
+    boolean isFresh(int currentGeneration, long now) {
+      return generation == currentGeneration && now - recheckAtNanos < 0L;
+    }
+  }
+
+  // -------------------------
+  // Source freshness
+  // -------------------------
+
+  /**
+   * Returns the last resolved cape source. Hooks run every frame, so the steady state is a
+   * single volatile read; props are re-read only after {@link #invalidateCapeSource()}, and the
+   * cape file and its .sig sidecar are only stat'ed again after the file watcher reports a change.
+   */
+  private static SourceSnapshot currentSourceSnapshot() {
+    final SourceSnapshot snapshot = sourceSnapshot;
+    if (snapshot != null && !snapshot.isStale(System.nanoTime())) return snapshot;
+    return refreshSourceSnapshot(snapshot);
+  }
+
+  static void invalidateCapeSource() {
+    sourceSnapshot = null;
+    localPlayerUuidLoaded = false;
+  }
+
+  // Watcher callback: compare file stamps on the next hook instead of re-resolving blindly, so
+  // touch-only events (or our own catalog/meta writes in the same directory) cost nothing.
+  private static void recheckCapeSource() {
+    final SourceSnapshot snapshot = sourceSnapshot;
+    if (snapshot != null) sourceSnapshot = snapshot.markedStale();
+  }
+
+  private static synchronized SourceSnapshot refreshSourceSnapshot(SourceSnapshot previous) {
+    if (previous != sourceSnapshot && sourceSnapshot != null) return sourceSnapshot;
+
+    final String rawPath = String.valueOf(System.getProperty(CAPE_PATH_PROPERTY, System.getProperty("fishbattery.cape.path", ""))).trim();
+    final String rawUrl  = String.valueOf(System.getProperty(CAPE_URL_PROPERTY, "")).trim();
+    final String tier = String.valueOf(System.getProperty(CAPE_TIER_PROPERTY, "")).trim().toLowerCase(Locale.ROOT);
+
+    final String propsKey = rawPath + "|" + rawUrl + "|" + tier;
+    if (!propsKey.equals(lastLoggedPropsKey)) {
+      CapeLog.info("source.props", "launcher props changed", "path", rawPath, "url", rawUrl, "tier", tier);
+      lastLoggedPropsKey = propsKey;
+    }
+
+    HTTP_FETCHER.setSelectedUrl(rawUrl);
+    refreshLocalPlayerUuid();
+    final long now = System.nanoTime();
+    final boolean watched = watchCapeFiles(rawPath);
+    final String fileStamp = rawPath.isEmpty() ? "" : fileStamp(rawPath) + "|" + fileStamp(rawPath + ".sig");
+    if (previous != null && previous.propsKey.equals(propsKey) && previous.fileStamp.equals(fileStamp)
+      && (previous.source != null || now - previous.resolvedAtNanos < FAILED_SOURCE_RETRY_NANOS)) {
+      final SourceSnapshot extended = previous.recheckedAt(now, watched);
+      sourceSnapshot = extended;
+      return extended;
+    }
+
+    // Inputs really changed: a source that failed before deserves another attempt.
+    failedSourceKey = "";
+    final CapeSource source = resolveCapeSource(rawPath, rawUrl);
+    final boolean remotePending = source == null && isHttpUrl(rawUrl) && HTTP_FETCHER.isPending(rawUrl);
+    if (source == null && !remotePending) {
+      CapeLog.warn("source.null", "resolved cape source is null", "capeId", getSelectedCapeId(), "path", rawPath, "url", rawUrl);
+    }
+    final SourceSnapshot next = new SourceSnapshot(propsKey, rawPath, tier, fileStamp, source, remotePending, watched, now);
+    sourceSnapshot = next;
+    return next;
+  }
+
+  private static boolean watchCapeFiles(String rawPath) {
+    if (rawPath.equals(watchedCapePath)) return capeFilesWatched;
+    boolean watched;
+    try {
+      watched = rawPath.isEmpty()
+        ? FILE_WATCHER.watch(CapeFileWatcher.Topic.CAPE)
+        : FILE_WATCHER.watch(CapeFileWatcher.Topic.CAPE, Path.of(rawPath), Path.of(rawPath + ".sig"));
+    } catch (Exception e) {
+      watched = false;
+    }
+    watchedCapePath = rawPath;
+    capeFilesWatched = watched;
+    return watched;
+  }
+
+  private static String fileStamp(String rawPath) {
+    if (rawPath.isEmpty()) return "";
+    try {
+      final Path path = Path.of(rawPath);
+      if (!Files.isRegularFile(path)) return "missing";
+      return Files.getLastModifiedTime(path).toMillis() + ":" + Files.size(path);
+    } catch (Exception ignored) {
+      return "missing";
+    }
+  }
+
+  private static final class SourceSnapshot {
+    final String propsKey;
+    final String rawPath;
+    final String tier;
+    final String fileStamp;
+    final CapeSource source;
+    final boolean remotePending;
+    final boolean watched;
+    final long resolvedAtNanos;
+    final long recheckAtNanos;
+    final boolean forceRecheck;
+
+    SourceSnapshot(String propsKey, String rawPath, String tier, String fileStamp, CapeSource source, boolean remotePending, boolean watched, long resolvedAtNanos) {
+      this(propsKey, rawPath, tier, fileStamp, source, remotePending, watched, resolvedAtNanos, resolvedAtNanos, false);
+    }
+
+    private SourceSnapshot(String propsKey, String rawPath, String tier, String fileStamp, CapeSource source, boolean remotePending, boolean watched, long resolvedAtNanos, long checkedAtNanos, boolean forceRecheck) {
+      this.propsKey = propsKey;
+      this.rawPath = rawPath;
+      this.tier = tier;
+      this.fileStamp = fileStamp;
+      this.source = source;
+      this.remotePending = remotePending;
+      this.watched = watched;
+      this.resolvedAtNanos = resolvedAtNanos;
+      this.forceRecheck = forceRecheck;
+      // File changes arrive through the watcher and remote updates through invalidateCapeSource();
+      // only an unwatchable directory falls back to a throttled stat.
+      if (!rawPath.isEmpty() && !watched) this.recheckAtNanos = checkedAtNanos + FILE_RECHECK_NANOS;
+      else if (source == null) this.recheckAtNanos = checkedAtNanos + FAILED_SOURCE_RETRY_NANOS;
+      else this.recheckAtNanos = Long.MAX_VALUE;
+    }
+
+    SourceSnapshot recheckedAt(long nowNanos, boolean nowWatched) {
+      return new SourceSnapshot(propsKey, rawPath, tier, fileStamp, source, remotePending, nowWatched, resolvedAtNanos, nowNanos, false);
+    }
+
+    SourceSnapshot markedStale() {
+      return new SourceSnapshot(propsKey, rawPath, tier, fileStamp, source, remotePending, watched, resolvedAtNanos, resolvedAtNanos, true);
+    }
+
+    boolean isStale(long nowNanos) {
+      if (forceRecheck) return true;
+      return recheckAtNanos != Long.MAX_VALUE && nowNanos - recheckAtNanos >= 0;
+    }
   }
 
   private static Object registerDynamicTexture(Object textureManager, String name, NativeImage image) {
+    final Class<?> managerClass = textureManager.getClass();
+    final RegistrationPlan plan = REGISTRATION_PLANS.get(managerClass);
+    if (plan != null) {
+      try {
+        final Object out = plan.register(textureManager, name, image);
+        if (isUsableTextureIdValue(out)) return out;
+      } catch (Throwable ignored) {}
+      // The compiled path stopped producing ids; forget it and probe again.
+      REGISTRATION_PLANS.remove(managerClass, plan);
+    }
+    return probeDynamicTextureRegistration(textureManager, name, image);
+  }
+
+  // Slow path: discovers how this runtime registers dynamic textures. The first working shape is
+  // compiled into a RegistrationPlan so later reloads skip the scan entirely.
+  private static Object probeDynamicTextureRegistration(Object textureManager, String name, NativeImage image) {
+    final Class<?> managerClass = textureManager.getClass();
+
     // Yarn names (1.21.1): TextureManager.registerDynamicTexture(String, NativeImage) -> Identifier
     try {
-      Method m = textureManager.getClass().getMethod("registerDynamicTexture", String.class, NativeImage.class);
+      Method m = managerClass.getMethod("registerDynamicTexture", String.class, NativeImage.class);
       m.setAccessible(true);
-      return m.invoke(textureManager, name, image);
+      final Object out = m.invoke(textureManager, name, image);
+      if (isUsableTextureIdValue(out)) {
+        CapeMetrics.fallback("registration", "registerDynamicTexture_string");
+        rememberRegistrationPlan(managerClass, compileSignatureRegistration(m, String.class, NativeImage.class, false));
+      }
+      return out;
     } catch (Throwable ignored) {}
 
     // Some versions use Supplier<String> for the label
     try {
-      Method m = textureManager.getClass().getMethod("registerDynamicTexture", Supplier.class, NativeImage.class);
+      Method m = managerClass.getMethod("registerDynamicTexture", Supplier.class, NativeImage.class);
       m.setAccessible(true);
-      return m.invoke(textureManager, (Supplier<String>) () -> name, image);
+      final Object out = m.invoke(textureManager, (Supplier<String>) () -> name, image);
+      if (isUsableTextureIdValue(out)) {
+        CapeMetrics.fallback("registration", "registerDynamicTexture_supplier");
+        rememberRegistrationPlan(managerClass, compileSignatureRegistration(m, Supplier.class, NativeImage.class, false));
+      }
+      return out;
     } catch (Throwable ignored) {}
 
     // Remapped runtime names can differ from Yarn; use signature-based discovery as a fallback.
     final Object dynamicTexture = buildDynamicTextureArg(textureManager, null, image);
-    for (Method m : allMethods(textureManager.getClass())) {
+    for (Method m : allMethods(managerClass)) {
       try {
         final Class<?>[] p = m.getParameterTypes();
         if (p.length != 2) continue;
@@ -282,24 +834,36 @@ public final class LauncherCapeRuntime {
 
         m.setAccessible(true);
         final Object out = m.invoke(textureManager, arg0, arg1);
-        if (isUsableTextureIdValue(out)) return out;
+        if (isUsableTextureIdValue(out)) {
+          CapeMetrics.fallback("registration", "signature_scan");
+          rememberRegistrationPlan(managerClass, compileSignatureRegistration(m, p[0], p[1], false));
+          return out;
+        }
         if (out instanceof Boolean) {
           if (!loggedRejectedRegistrationMethod) {
             loggedRejectedRegistrationMethod = true;
-            System.err.println("[fishbattery_cape_bridge] rejected texture registration method: " + methodKey(m) + " returned " + out);
+            CapeLog.info("registration.rejected", "rejected texture registration method", "method", methodKey(m), "returned", out);
+          }
+          if ((Boolean) out && isUsableTextureIdValue(arg0)) {
+            CapeMetrics.fallback("registration", "signature_scan_boolean");
+            rememberRegistrationPlan(managerClass, compileSignatureRegistration(m, p[0], p[1], true));
+            return arg0;
           }
-          if ((Boolean) out && isUsableTextureIdValue(arg0)) return arg0;
           continue;
         }
         if (out != null) continue;
 
         // Some methods return void/bool. If arg0 is id-like, use it as texture id.
-        if (isUsableTextureIdValue(arg0)) return arg0;
+        if (isUsableTextureIdValue(arg0)) {
+          CapeMetrics.fallback("registration", "signature_scan_void");
+          rememberRegistrationPlan(managerClass, compileSignatureRegistration(m, p[0], p[1], true));
+          return arg0;
+        }
       } catch (Throwable ignored) {}
     }
 
     // Last-resort fallback: some runtimes expose one-arg register methods.
-    for (Method m : allMethods(textureManager.getClass())) {
+    for (Method m : allMethods(managerClass)) {
       try {
         final Class<?>[] p = m.getParameterTypes();
         if (p.length != 1) continue;
@@ -307,45 +871,28 @@ public final class LauncherCapeRuntime {
         if (arg == null) continue;
         m.setAccessible(true);
         final Object out = m.invoke(textureManager, arg);
-        if (isUsableTextureIdValue(out)) return out;
+        if (isUsableTextureIdValue(out)) {
+          CapeMetrics.fallback("registration", "single_arg");
+          rememberRegistrationPlan(managerClass, compileSingleArgRegistration(m, p[0]));
+          return out;
+        }
       } catch (Throwable ignored) {}
     }
 
+    CapeMetrics.fallback("registration", "failed");
     logTextureRegistrationDiagnostics(textureManager, image, dynamicTexture);
     return null;
   }
 
   private static boolean isUsableTextureIdValue(Object value) {
-    if (value == null) return false;
-    if (value instanceof Boolean) return false;
-    if (value instanceof Number) return false;
-    if (value instanceof Supplier<?>) return false;
-    if (value instanceof CharSequence) return false;
-    if (isIdentifierLike(value.getClass())) return true;
-    final String n = value.getClass().getName().toLowerCase(Locale.ROOT);
-    return n.contains("identifier")
-      || n.contains("resource")
-      || n.contains("clientasset")
-      || n.contains("asset");
-  }
-
-  private static boolean isIdentifierLike(Class<?> cls) {
-    if (cls == null) return false;
-    final String n = cls.getName();
-    if ("net.minecraft.class_2960".equals(n)) return true;
-    if (n.endsWith(".Identifier") || n.endsWith(".ResourceLocation")) return true;
-    boolean hasNs = false;
-    boolean hasPath = false;
-    for (Method m : cls.getMethods()) {
-      if (m.getParameterCount() != 0 || m.getReturnType() != String.class) continue;
-      final String mn = m.getName().toLowerCase(Locale.ROOT);
-      if (mn.contains("namespace")) hasNs = true;
-      if (mn.equals("path") || mn.contains("path")) hasPath = true;
-    }
-    return hasNs && hasPath;
+    return backend.isTextureId(value);
   }
 
   private static Method[] allMethods(Class<?> cls) {
+    return ALL_METHODS.get(cls);
+  }
+
+  private static Method[] scanAllMethods(Class<?> cls) {
     final LinkedHashMap<String, Method> out = new LinkedHashMap<>();
     try {
       for (Method m : cls.getMethods()) {
@@ -382,29 +929,37 @@ public final class LauncherCapeRuntime {
     try {
       final String imageType = image == null ? "null" : image.getClass().getName();
       final String dynType = dynamicTexture == null ? "null" : dynamicTexture.getClass().getName();
-      System.err.println("[fishbattery_cape_bridge] texture registration diagnostics begin");
-      System.err.println("[fishbattery_cape_bridge] textureManager=" + textureManager.getClass().getName());
-      System.err.println("[fishbattery_cape_bridge] imageType=" + imageType + " dynamicTextureType=" + dynType);
+      final StringBuilder methods = new StringBuilder();
       for (Method m : allMethods(textureManager.getClass())) {
         final Class<?>[] p = m.getParameterTypes();
         if (p.length > 2) continue;
-        final StringBuilder sig = new StringBuilder();
-        sig.append(m.getName()).append('(');
+        if (methods.length() > 0) methods.append("; ");
+        methods.append(m.getName()).append('(');
         for (int i = 0; i < p.length; i++) {
-          if (i > 0) sig.append(", ");
-          sig.append(p[i].getName());
+          if (i > 0) methods.append(", ");
+          methods.append(p[i].getName());
         }
-        sig.append(") -> ").append(m.getReturnType().getName());
-        System.err.println("[fishbattery_cape_bridge] method " + sig);
+        methods.append(") -> ").append(m.getReturnType().getName());
       }
-      System.err.println("[fishbattery_cape_bridge] texture registration diagnostics end");
+      CapeLog.warn("registration.diagnostics", "texture registration diagnostics",
+        "textureManager", textureManager.getClass().getName(), "imageType", imageType, "dynamicTextureType", dynType, "methods", methods);
     } catch (Throwable t) {
-      System.err.println("[fishbattery_cape_bridge] diagnostics failed: " + t);
+      CapeLog.warn("registration.diagnosticsFailed", "diagnostics failed", "error", t);
     }
   }
 
   private static Object buildDynamicTextureArg(Object textureManager, Class<?> expectedType, NativeImage image) {
     if (textureManager == null || image == null) return null;
+    final List<Class<?>> key = Arrays.asList(textureManager.getClass(), expectedType, image.getClass());
+    final TextureFactory factory = TEXTURE_FACTORIES.get(key);
+    if (factory != null) {
+      try {
+        final Object out = factory.create(image);
+        if (out != null) return out;
+      } catch (Throwable ignored) {}
+      TEXTURE_FACTORIES.remove(key, factory);
+    }
+
     // Prefer known runtime texture class first.
     for (String cn : new String[] {
       "net.minecraft.class_1043",
@@ -415,21 +970,8 @@ public final class LauncherCapeRuntime {
         Class<?> cls = Class.forName(cn);
         if (expectedType != null && !expectedType.isAssignableFrom(cls)) continue;
         for (Constructor<?> c : cls.getDeclaredConstructors()) {
-          final Class<?>[] cp = c.getParameterTypes();
-          try {
-            if (cp.length == 1 && cp[0].isAssignableFrom(image.getClass())) {
-              c.setAccessible(true);
-              return c.newInstance(image);
-            }
-            if (cp.length == 2 && cp[0] == String.class && cp[1].isAssignableFrom(image.getClass())) {
-              c.setAccessible(true);
-              return c.newInstance("fishbattery_launcher_cape", image);
-            }
-            if (cp.length == 2 && Supplier.class.isAssignableFrom(cp[0]) && cp[1].isAssignableFrom(image.getClass())) {
-              c.setAccessible(true);
-              return c.newInstance((Supplier<String>) () -> "fishbattery_launcher_cape", image);
-            }
-          } catch (Throwable ignored) {}
+          final Object out = constructDynamicTexture(c, image, key);
+          if (out != null) return out;
         }
       } catch (Throwable ignored) {}
     }
@@ -442,21 +984,8 @@ public final class LauncherCapeRuntime {
       if (expectedType != null && !expectedType.isAssignableFrom(textureType)) continue;
 
       for (Constructor<?> c : textureType.getDeclaredConstructors()) {
-        final Class<?>[] cp = c.getParameterTypes();
-        try {
-          if (cp.length == 1 && cp[0].isAssignableFrom(image.getClass())) {
-            c.setAccessible(true);
-            return c.newInstance(image);
-          }
-          if (cp.length == 2 && cp[0] == String.class && cp[1].isAssignableFrom(image.getClass())) {
-            c.setAccessible(true);
-            return c.newInstance("fishbattery_launcher_cape", image);
-          }
-          if (cp.length == 2 && Supplier.class.isAssignableFrom(cp[0]) && cp[1].isAssignableFrom(image.getClass())) {
-            c.setAccessible(true);
-            return c.newInstance((Supplier<String>) () -> "fishbattery_launcher_cape", image);
-          }
-        } catch (Throwable ignored) {}
+        final Object out = constructDynamicTexture(c, image, key);
+        if (out != null) return out;
       }
     }
     return null;
@@ -465,6 +994,7 @@ public final class LauncherCapeRuntime {
   private static Object coerceTextureNameArg(Class<?> expectedType, String name) {
     if (expectedType == String.class) return name;
     if (Supplier.class.isAssignableFrom(expectedType)) return (Supplier<String>) () -> name;
+    if (expectedType != backend.identifierClass()) return null;
     return newIdentifier(expectedType, "fishbattery", name);
   }
 
@@ -479,8 +1009,30 @@ public final class LauncherCapeRuntime {
   }
 
   private static Object newIdentifier(Class<?> cls, String namespace, String path) {
-    final String nsPath = namespace + ":" + path;
-    final String className = cls == null ? "" : cls.getName();
+    if (cls == null) return null;
+    final IdentifierFactory factory = IDENTIFIER_FACTORIES.get(cls);
+    if (factory == NO_IDENTIFIER_FACTORY) return null;
+    if (factory != null) {
+      try {
+        final Object out = factory.create(namespace, path);
+        if (out != null) return out;
+      } catch (Throwable ignored) {}
+      IDENTIFIER_FACTORIES.remove(cls, factory);
+    }
+    final Object out = probeIdentifierFactory(cls, namespace, path);
+    if (out == null) {
+      IDENTIFIER_FACTORIES.putIfAbsent(cls, NO_IDENTIFIER_FACTORY);
+      if (cls == backend.identifierClass() && !loggedIdentifierCreationFailure) {
+        loggedIdentifierCreationFailure = true;
+        CapeLog.warn("identifier.failed", "could not create identifier", "type", cls.getName());
+      }
+    }
+    return out;
+  }
+
+  private static Object probeIdentifierFactory(Class<?> cls, String namespace, String path) {
+    final String className = cls.getName();
+    final MethodHandles.Lookup lookup = MethodHandles.lookup();
 
     // Explicit support for obfuscated 1.21+ ResourceLocation class.
     if ("net.minecraft.class_2960".equals(className)) {
@@ -489,7 +1041,7 @@ public final class LauncherCapeRuntime {
           Method m = cls.getDeclaredMethod(methodName, String.class, String.class);
           if (java.lang.reflect.Modifier.isStatic(m.getModifiers())) {
             m.setAccessible(true);
-            Object out = m.invoke(null, namespace, path);
+            Object out = rememberIdentifierFactory(cls, methodName, lookup.unreflect(m), true, namespace, path);
             if (out != null) return out;
           }
         } catch (Throwable ignored) {}
@@ -499,7 +1051,7 @@ public final class LauncherCapeRuntime {
           Method m = cls.getDeclaredMethod(methodName, String.class);
           if (java.lang.reflect.Modifier.isStatic(m.getModifiers())) {
             m.setAccessible(true);
-            Object out = m.invoke(null, nsPath);
+            Object out = rememberIdentifierFactory(cls, methodName, lookup.unreflect(m), false, namespace, path);
             if (out != null) return out;
           }
         } catch (Throwable ignored) {}
@@ -511,11 +1063,11 @@ public final class LauncherCapeRuntime {
         final Class<?>[] p = c.getParameterTypes();
         if (p.length == 2 && p[0] == String.class && p[1] == String.class) {
           c.setAccessible(true);
-          return c.newInstance(namespace, path);
+          return rememberIdentifierFactory(cls, "constructor", lookup.unreflectConstructor(c), true, namespace, path);
         }
         if (p.length == 1 && p[0] == String.class) {
           c.setAccessible(true);
-          return c.newInstance(nsPath);
+          return rememberIdentifierFactory(cls, "constructor", lookup.unreflectConstructor(c), false, namespace, path);
         }
       } catch (Throwable ignored) {}
     }
@@ -527,739 +1079,510 @@ public final class LauncherCapeRuntime {
         final Class<?>[] p = m.getParameterTypes();
         if (p.length == 2 && p[0] == String.class && p[1] == String.class) {
           m.setAccessible(true);
-          return m.invoke(null, namespace, path);
+          return rememberIdentifierFactory(cls, "static_factory", lookup.unreflect(m), true, namespace, path);
         }
         if (p.length == 1 && p[0] == String.class) {
           m.setAccessible(true);
-          return m.invoke(null, nsPath);
+          return rememberIdentifierFactory(cls, "static_factory", lookup.unreflect(m), false, namespace, path);
         }
       } catch (Throwable ignored) {}
     }
 
     return null;
   }
-  private static Object tryWrapAsClientAsset(Class<?> expectedType, Object textureId) {
-    if (textureId == null) return null;
-
-    // Most 1.21+ builds: net.minecraft.core.ClientAsset$ResourceTexture(Identifier)
-    // Some forks/mappings: net.minecraft.client.texture.ClientAsset$ResourceTexture
-    for (String cn : new String[] {
-      "net.minecraft.class_12079$class_10726",
-      "net.minecraft.core.ClientAsset$ResourceTexture",
-      "net.minecraft.client.texture.ClientAsset$ResourceTexture"
-    }) {
-      try {
-        Class<?> cls = Class.forName(cn);
-        if (expectedType != null && !expectedType.isAssignableFrom(cls)) continue;
-        // Prefer ctor(Identifier id, Identifier texturePath) so dynamic texture ids don't get
-        // remapped to namespace:textures/path.png resource lookups.
-        for (Constructor<?> c : cls.getDeclaredConstructors()) {
-          Class<?>[] p = c.getParameterTypes();
-          if (p.length == 2 && p[0].isInstance(textureId) && p[1].isInstance(textureId)) {
-            c.setAccessible(true);
-            return c.newInstance(textureId, textureId);
-          }
-        }
-        for (Constructor<?> c : cls.getDeclaredConstructors()) {
-          Class<?>[] p = c.getParameterTypes();
-          if (p.length >= 1 && p[0].isInstance(textureId)) {
-            Object[] args = new Object[p.length];
-            args[0] = textureId;
-            for (int i = 1; i < p.length; i++) args[i] = defaultArg(p[i], textureId);
-            c.setAccessible(true);
-            return c.newInstance(args);
-          }
-        }
-      } catch (Throwable ignored) {}
-    }
-
-    return null;
-  }
-
-  private static Object tryWrapAsClientAsset(Object textureId) {
-    return tryWrapAsClientAsset(null, textureId);
-  }
-
-  private static Object defaultArg(Class<?> t, Object textureId) {
-    if (t.isInstance(textureId)) return textureId;
-    if (t == String.class) return "fishbattery_launcher_cape";
-    if (t == boolean.class) return false;
-    if (t == int.class) return 0;
-    if (t == long.class) return 0L;
-    if (!t.isPrimitive()) return null;
-    return 0;
-  }
 
   // -------------------------
-  // Record replacement
+  // Compiled registration plans
   // -------------------------
+  // Probing the texture manager, texture classes and identifier factories is reflection heavy and
+  // its answer only depends on the runtime classes, so each winner is kept as a MethodHandle
+  // adapted to a generic (Object...)Object shape and invoked directly on later reloads.
 
-  private static Object tryReplaceCapeOnRecordSkin(Object skinLike, Object newCapeValue) {
-    try {
-      Class<?> skinClass = skinLike.getClass();
-      RecordComponent[] comps = skinClass.getRecordComponents();
-      if (comps == null || comps.length == 0) return null;
-
-      Class<?>[] ctorTypes = new Class<?>[comps.length];
-      Object[] args = new Object[comps.length];
-
-      for (int i = 0; i < comps.length; i++) {
-        ctorTypes[i] = comps[i].getType();
-        Method acc = comps[i].getAccessor();
-        acc.setAccessible(true);
-        args[i] = acc.invoke(skinLike);
-      }
-
-      // Replace every cape-like texture slot (typically cape + elytra), except index 0
-      // which is usually the base skin texture.
-      boolean replacedAny = false;
-      for (int i = 0; i < ctorTypes.length; i++) {
-        if (i == 0) continue;
-        Object coerced = coerceToType(ctorTypes[i], newCapeValue);
-        if (coerced == null) coerced = tryWrapAsClientAsset(ctorTypes[i], newCapeValue);
-        if (coerced == null) continue;
-        args[i] = coerced;
-        replacedAny = true;
-      }
-      if (!replacedAny) return null;
-
-      Constructor<?> ctor = skinClass.getDeclaredConstructor(ctorTypes);
-      ctor.setAccessible(true);
-      return ctor.newInstance(args);
-=======
-  public static Object tryReplaceCapeOnSkin(Object skinLike, Object capeTextureId) {
-    if (skinLike == null || capeTextureId == null) return null;
-    try {
-      final Object currentCape = invokeNoArg(skinLike, "cape", "capeTexture", "getCapeTexture");
-      Object replacementCape = coerceCapeForExpectedType(currentCape != null ? currentCape.getClass() : null, capeTextureId);
-      if (replacementCape == null) replacementCape = capeTextureId;
-
-      if (skinLike.getClass().isRecord()) {
-        final Object replacedRecord = tryReplaceCapeOnRecordSkin(skinLike, replacementCape);
-        if (replacedRecord != null) return replacedRecord;
-      }
-
-      final Object body = invokeNoArg(skinLike, "body", "texture", "skin", "getTexture");
-      final Object cape = currentCape;
-      final Object elytra = invokeNoArg(skinLike, "elytra", "elytraTexture", "getElytraTexture");
-      final Object model = invokeNoArg(skinLike, "model", "modelType", "getModel");
-      final Object secure = invokeNoArg(skinLike, "secure", "isSecure");
-
-      if (body == null || model == null || secure == null) return null;
-      // Keep old cape if no replacement provided (defensive), but we always pass replacement.
-      final Object nextCape = replacementCape != null ? replacementCape : cape;
-      final Object textureUrl = invokeNoArg(skinLike, "textureUrl", "skinUrl", "url", "getTextureUrl");
-
-      for (Constructor<?> c : skinLike.getClass().getDeclaredConstructors()) {
-        final Class<?>[] p = c.getParameterTypes();
-        final Object[] args;
-        if (p.length == 5) {
-          args = new Object[] { body, nextCape, elytra, model, secure };
-        } else if (p.length == 6) {
-          args = new Object[] { body, textureUrl != null ? textureUrl : "", nextCape, elytra, model, secure };
-        } else {
-          continue;
-        }
-        if (!parametersMatch(p, args)) continue;
-        try {
-          c.setAccessible(true);
-          return c.newInstance(args);
-        } catch (Exception ignored) {}
-      }
-    } catch (Throwable ignored) {}
-    return null;
+  private interface RegistrationPlan {
+    Object register(Object textureManager, String name, NativeImage image) throws Throwable;
   }
 
-  private static Object tryReplaceCapeOnRecordSkin(Object skinLike, Object capeTextureId) {
-    try {
-      final Class<?> skinClass = skinLike.getClass();
-      final java.lang.reflect.RecordComponent[] components = skinClass.getRecordComponents();
-      if (components == null || components.length == 0) return null;
-
-      final Class<?>[] constructorTypes = new Class<?>[components.length];
-      final Object[] args = new Object[components.length];
-      for (int i = 0; i < components.length; i++) {
-        constructorTypes[i] = components[i].getType();
-        Method accessor = components[i].getAccessor();
-        accessor.setAccessible(true);
-        args[i] = accessor.invoke(skinLike);
-      }
-
-      final int capeIndex = findCapeComponentIndex(components, capeTextureId);
-      if (capeIndex < 0) return null;
-      Object replacementCape = capeTextureId;
-      if (!isAssignable(constructorTypes[capeIndex], replacementCape.getClass())) {
-        replacementCape = coerceCapeForExpectedType(constructorTypes[capeIndex], capeTextureId);
-      }
-      if (replacementCape == null || !isAssignable(constructorTypes[capeIndex], replacementCape.getClass())) return null;
-      args[capeIndex] = replacementCape;
-
-      final Constructor<?> constructor = skinClass.getDeclaredConstructor(constructorTypes);
-      constructor.setAccessible(true);
-      return constructor.newInstance(args);
->>>>>>> origin/main
-    } catch (Throwable ignored) {
-      return null;
-    }
+  private interface TextureFactory {
+    Object create(NativeImage image) throws Throwable;
   }
 
-<<<<<<< HEAD
-  private static int findComponentIndexByName(RecordComponent[] comps, String needle) {
-    String n = needle.toLowerCase(Locale.ROOT);
-    for (int i = 0; i < comps.length; i++) {
-      String name = String.valueOf(comps[i].getName()).toLowerCase(Locale.ROOT);
-      if (name.contains(n)) return i;
-=======
-  private static int findCapeComponentIndex(java.lang.reflect.RecordComponent[] components, Object capeTextureId) {
-    final Class<?> capeType = capeTextureId.getClass();
-    int matchCount = 0;
-    int lastMatch = -1;
-    for (int i = 0; i < components.length; i++) {
-      final Class<?> type = components[i].getType();
-      if (isAssignable(type, capeType) || isAssignable(capeType, type)) {
-        matchCount += 1;
-        lastMatch = i;
-        if (matchCount == 2) return i;
-      }
-    }
-    if (matchCount == 1) return lastMatch;
-
-    for (int i = 0; i < components.length; i++) {
-      final String name = String.valueOf(components[i].getName()).toLowerCase(Locale.ROOT);
-      if (name.contains("cape")) return i;
->>>>>>> origin/main
-    }
-    return -1;
+  private interface IdentifierFactory {
+    Object create(String namespace, String path) throws Throwable;
   }
 
-<<<<<<< HEAD
-  private static int findCapeIndexHeuristic(RecordComponent[] comps, Class<?>[] ctorTypes, Object[] currentValues, Object newCapeValue) {
-    if (comps == null || ctorTypes == null || currentValues == null) return -1;
-    final List<Integer> candidates = new ArrayList<>();
-    for (int i = 0; i < ctorTypes.length; i++) {
-      if (coerceToType(ctorTypes[i], newCapeValue) != null) candidates.add(i);
-    }
-    if (candidates.isEmpty()) return -1;
-
-    // SkinTextures-like record layouts usually keep cape at index 2.
-    if (ctorTypes.length >= 3 && candidates.contains(2)) {
-      if (!loggedRecordCapeFallback) {
-        loggedRecordCapeFallback = true;
-        System.err.println("[fishbattery_cape_bridge] using record cape fallback index=2");
-      }
-      return 2;
-    }
+  private static final Map<Class<?>, RegistrationPlan> REGISTRATION_PLANS = new ConcurrentHashMap<>();
+  // Keyed by (texture manager class, expected texture type or null, image class).
+  private static final Map<List<Class<?>>, TextureFactory> TEXTURE_FACTORIES = new ConcurrentHashMap<>();
+  private static final Map<Class<?>, IdentifierFactory> IDENTIFIER_FACTORIES = new ConcurrentHashMap<>();
+  // Negative entry: the class has no usable factory, don't scan it again.
+  private static final IdentifierFactory NO_IDENTIFIER_FACTORY = (namespace, path) -> null;
+  private static final String DYNAMIC_TEXTURE_LABEL = "fishbattery_launcher_cape";
+  private static final Supplier<String> DYNAMIC_TEXTURE_LABEL_SUPPLIER = () -> DYNAMIC_TEXTURE_LABEL;
 
-    // Otherwise avoid index 0 (body texture) when possible.
-    for (int idx : candidates) {
-      if (idx != 0) {
-        if (!loggedRecordCapeFallback) {
-          loggedRecordCapeFallback = true;
-          System.err.println("[fishbattery_cape_bridge] using record cape fallback index=" + idx);
-        }
-        return idx;
-      }
+  private static final ClassValue<Method[]> ALL_METHODS = new ClassValue<Method[]>() {
+    @Override
+    protected Method[] computeValue(Class<?> cls) {
+      return scanAllMethods(cls);
     }
+  };
 
-    return candidates.get(0);
+  private static void rememberRegistrationPlan(Class<?> managerClass, RegistrationPlan plan) {
+    if (plan != null) REGISTRATION_PLANS.put(managerClass, plan);
   }
 
-  private static Object coerceToType(Class<?> expected, Object value) {
-    if (value == null) return null;
-    if (expected == null) return value;
-    if (expected.isInstance(value)) return value;
-
-    // Optional
-    if (expected == Optional.class) return Optional.of(value);
-
-    // If the expected type is Optional<something>, try Optional.of(coercedInner) isn’t possible via erasure,
-    // but Optional.of(value) works in practice if MC just checks presence.
-    if (expected.getName().equals("java.util.Optional")) return Optional.of(value);
-
-    // Constructors
-    for (Constructor<?> c : expected.getDeclaredConstructors()) {
-      try {
-        Class<?>[] p = c.getParameterTypes();
-        if (p.length == 1 && p[0].isAssignableFrom(value.getClass())) {
-          c.setAccessible(true);
-          return c.newInstance(value);
-        }
-      } catch (Throwable ignored) {}
-    }
-
-    // Static factories: of/create/from
-    for (Method m : expected.getDeclaredMethods()) {
-      try {
-        if (!java.lang.reflect.Modifier.isStatic(m.getModifiers())) continue;
-        if (!expected.isAssignableFrom(m.getReturnType())) continue;
-        Class<?>[] p = m.getParameterTypes();
-        if (p.length == 1 && p[0].isAssignableFrom(value.getClass())) {
-          m.setAccessible(true);
-          return m.invoke(null, value);
-        }
-      } catch (Throwable ignored) {}
-=======
-  public static List<CapeOption> getSelectableCapes() {
-    final Path catalogPath = resolveCatalogPath();
-    if (catalogPath == null || !Files.isRegularFile(catalogPath)) return Collections.emptyList();
-    final List<CapeOption> out = new ArrayList<>();
-    try {
-      final List<String> lines = Files.readAllLines(catalogPath, StandardCharsets.UTF_8);
-      for (String rawLine : lines) {
-        final String line = String.valueOf(rawLine).trim();
-        if (line.isEmpty() || line.startsWith("#")) continue;
-        if (!line.startsWith("cape\t")) continue;
-        final String[] parts = line.split("\t", -1);
-        if (parts.length < 6) continue;
-        final String id = decodeCatalogField(parts[1]);
-        if (id.isEmpty()) continue;
-        final String name = decodeCatalogField(parts[2]);
-        final String tier = decodeCatalogField(parts[3]).toLowerCase(Locale.ROOT);
-        final String fullPath = decodeCatalogField(parts[4]);
-        final String cloudUrl = decodeCatalogField(parts[5]);
-        out.add(new CapeOption(id, name.isEmpty() ? id : name, tier, fullPath, cloudUrl));
-      }
-    } catch (Exception ignored) {}
-    return out;
+  private static MethodHandle genericHandle(Method m) throws IllegalAccessException {
+    m.setAccessible(true);
+    final MethodHandle handle = MethodHandles.lookup().unreflect(m);
+    return handle.asType(MethodType.genericMethodType(handle.type().parameterCount()));
   }
 
-  public static String getSelectedCapeId() {
-    return String.valueOf(System.getProperty(CAPE_ID_PROPERTY, "")).trim();
+  private static MethodHandle genericHandle(Constructor<?> c) throws IllegalAccessException {
+    c.setAccessible(true);
+    final MethodHandle handle = MethodHandles.lookup().unreflectConstructor(c);
+    return handle.asType(MethodType.genericMethodType(handle.type().parameterCount()));
   }
 
-  public static boolean selectCapeById(String capeId) {
-    final String id = String.valueOf(capeId == null ? "" : capeId).trim();
-    if (id.isEmpty()) {
-      System.setProperty(CAPE_PATH_PROPERTY, "");
-      System.setProperty(CAPE_URL_PROPERTY, "");
-      System.setProperty(CAPE_ID_PROPERTY, "");
-      System.setProperty(CAPE_TIER_PROPERTY, "");
-      cachedSourceKey = "";
-      cachedTextureId = null;
-      cachedCapeTexture = null;
-      saveSelectedCapeToCatalog("");
-      saveSelectedCapeToMeta("", "", "", "");
-      return true;
-    }
-
-    final List<CapeOption> options = getSelectableCapes();
-    CapeOption selected = null;
-    for (CapeOption option : options) {
-      if (id.equals(option.id)) {
-        selected = option;
-        break;
-      }
+  // idFromNameArg: the method returns void/true and the id is the (coerced) name argument itself.
+  private static RegistrationPlan compileSignatureRegistration(Method m, Class<?> nameType, Class<?> dataType, boolean idFromNameArg) {
+    final MethodHandle handle;
+    try {
+      handle = genericHandle(m);
+    } catch (Throwable t) {
+      return null;
     }
-    if (selected == null) return false;
-
-    System.setProperty(CAPE_PATH_PROPERTY, selected.fullPath);
-    System.setProperty(CAPE_URL_PROPERTY, selected.cloudUrl);
-    System.setProperty(CAPE_ID_PROPERTY, selected.id);
-    System.setProperty(CAPE_TIER_PROPERTY, selected.tier);
-    cachedSourceKey = "";
-    cachedTextureId = null;
-    cachedCapeTexture = null;
-    reloadCapeTextureFromSystemProperties();
-    saveSelectedCapeToCatalog(selected.id);
-    saveSelectedCapeToMeta(selected.id, selected.tier, selected.fullPath, selected.cloudUrl);
-    return true;
+    return (textureManager, name, image) -> {
+      final Object arg0 = coerceTextureNameArg(nameType, name);
+      final Object arg1 = planTextureDataArg(textureManager, dataType, image);
+      if (arg0 == null || arg1 == null) return null;
+      final Object out = (Object) handle.invokeExact(textureManager, arg0, arg1);
+      if (!idFromNameArg) return out;
+      return out == null || Boolean.TRUE.equals(out) ? arg0 : null;
+    };
   }
 
-  private static Object reloadCapeTextureFromSystemProperties() {
-    final String rawPath = System.getProperty(CAPE_PATH_PROPERTY, "").trim();
-    final String rawUrl = System.getProperty(CAPE_URL_PROPERTY, "").trim();
-    final CapeSource source = resolveCapeSource(rawPath, rawUrl);
-    if (source == null) return null;
-    if (source.cacheKey.equals(cachedSourceKey) && cachedTextureId != null) {
-      return cachedTextureId;
-    }
-
-    final Minecraft mc = Minecraft.getInstance();
-    if (mc == null) return null;
-
-    final Object textureManager = mc.getTextureManager();
-    if (textureManager == null) return null;
-
-    final NativeImage nativeImage;
+  private static RegistrationPlan compileSingleArgRegistration(Method m, Class<?> dataType) {
+    final MethodHandle handle;
     try {
-      nativeImage = readNativeImage(source.stream);
-    } catch (IOException ignored) {
+      handle = genericHandle(m);
+    } catch (Throwable t) {
       return null;
     }
-    if (nativeImage == null) return null;
-
-    final Object dynamicTexture = newDynamicTexture(nativeImage);
-    if (dynamicTexture == null) return null;
-
-    final Class<?> identifierType = findIdentifierParameterType(textureManager, dynamicTexture);
-    if (identifierType == null) return null;
-
-    final Object textureId = newIdentifier(identifierType, "fishbattery", "launcher_cape_dynamic");
-    if (textureId == null) return null;
-
-    if (!registerTexture(textureManager, textureId, dynamicTexture)) return null;
-
-    cachedSourceKey = source.cacheKey;
-    cachedTextureId = textureId;
-    cachedCapeTexture = createClientAssetTexture(textureId);
-    return textureId;
+    return (textureManager, name, image) -> {
+      final Object arg = planTextureDataArg(textureManager, dataType, image);
+      return arg == null ? null : (Object) handle.invokeExact(textureManager, arg);
+    };
   }
 
-  private static boolean isLocalPlayerProfile(Object playerInfoLike) {
-    final UUID localUuid = getConfiguredLocalPlayerUuid();
-    if (localUuid == null) return true;
-    final UUID profileUuid = extractUuid(playerInfoLike, new IdentityHashMap<>(), 0);
-    if (profileUuid == null) return true;
-    return localUuid.equals(profileUuid);
+  private static Object planTextureDataArg(Object textureManager, Class<?> dataType, NativeImage image) {
+    if (dataType.isInstance(image)) return image;
+    final Object built = buildDynamicTextureArg(textureManager, dataType, image);
+    return built != null && dataType.isInstance(built) ? built : null;
   }
 
-  private static NativeImage readNativeImage(InputStream input) throws IOException {
-    try (InputStream in = input) {
-      return NativeImage.read(in);
-    } catch (Exception e) {
+  // Returns the texture built by the first supported constructor shape and caches that shape.
+  private static Object constructDynamicTexture(Constructor<?> c, NativeImage image, List<Class<?>> key) {
+    final Class<?>[] cp = c.getParameterTypes();
+    final int shape;
+    if (cp.length == 1 && cp[0].isAssignableFrom(image.getClass())) shape = 0;
+    else if (cp.length == 2 && cp[0] == String.class && cp[1].isAssignableFrom(image.getClass())) shape = 1;
+    else if (cp.length == 2 && Supplier.class.isAssignableFrom(cp[0]) && cp[1].isAssignableFrom(image.getClass())) shape = 2;
+    else return null;
+    try {
+      final MethodHandle handle = genericHandle(c);
+      final TextureFactory factory;
+      if (shape == 0) factory = (img) -> (Object) handle.invokeExact((Object) img);
+      else if (shape == 1) factory = (img) -> (Object) handle.invokeExact((Object) DYNAMIC_TEXTURE_LABEL, (Object) img);
+      else factory = (img) -> (Object) handle.invokeExact((Object) DYNAMIC_TEXTURE_LABEL_SUPPLIER, (Object) img);
+      final Object out = factory.create(image);
+      if (out != null) TEXTURE_FACTORIES.put(key, factory);
+      return out;
+    } catch (Throwable ignored) {
       return null;
     }
   }
 
-  private static CapeSource resolveCapeSource(String rawPath, String rawUrl) {
-    if (!rawPath.isEmpty()) {
-      try {
-        final Path path = Path.of(rawPath);
-        if (Files.isRegularFile(path)) {
-          final long mtime = Files.getLastModifiedTime(path).toMillis();
-          return new CapeSource(Files.newInputStream(path), "path:" + rawPath + ":" + mtime);
-        }
-      } catch (Exception ignored) {}
-    }
+  private static IdentifierFactory compileIdentifierFactory(MethodHandle handle, boolean split) {
+    final MethodHandle generic = handle.asType(MethodType.genericMethodType(split ? 2 : 1));
+    if (split) return (namespace, path) -> (Object) generic.invokeExact((Object) namespace, (Object) path);
+    return (namespace, path) -> (Object) generic.invokeExact((Object) (namespace + ":" + path));
+  }
 
-    if (!rawUrl.isEmpty()) {
-      try {
-        if (rawUrl.startsWith("data:")) {
-          final int comma = rawUrl.indexOf(',');
-          if (comma > 0 && comma < rawUrl.length() - 1) {
-            final String head = rawUrl.substring(0, comma);
-            final String body = rawUrl.substring(comma + 1);
-            final byte[] bytes = head.contains(";base64")
-              ? Base64.getDecoder().decode(body)
-              : URLDecoder.decode(body, StandardCharsets.UTF_8).getBytes(StandardCharsets.UTF_8);
-            return new CapeSource(new java.io.ByteArrayInputStream(bytes), "data:" + bytes.length);
-          }
-        } else if (rawUrl.startsWith("http://") || rawUrl.startsWith("https://")) {
-          final URL url = URI.create(rawUrl).toURL();
-          final HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-          conn.setRequestMethod("GET");
-          conn.setConnectTimeout(5000);
-          conn.setReadTimeout(10000);
-          conn.setRequestProperty("User-Agent", "FishbatteryCapeBridge/1.0");
-          final int status = conn.getResponseCode();
-          if (status >= 200 && status < 300) {
-            return new CapeSource(conn.getInputStream(), "url:" + rawUrl);
-          }
-          conn.disconnect();
-        }
-      } catch (Exception ignored) {}
+  // Invokes the freshly found factory once; it is only cached when it produced a value.
+  private static Object rememberIdentifierFactory(Class<?> cls, String how, MethodHandle handle, boolean split, String namespace, String path) throws Throwable {
+    final IdentifierFactory factory = compileIdentifierFactory(handle, split);
+    final Object out = factory.create(namespace, path);
+    if (out != null) {
+      CapeMetrics.fallback("identifier", how + (split ? "_split" : "_joined"));
+      IDENTIFIER_FACTORIES.put(cls, factory);
     }
-    return null;
+    return out;
   }
 
-  private static final class CapeSource {
-    final InputStream stream;
-    final String cacheKey;
-
-    CapeSource(InputStream stream, String cacheKey) {
-      this.stream = stream;
-      this.cacheKey = cacheKey;
+  // -------------------------
+  // Texture release
+  // -------------------------
+  // TextureManager.release(id) (Mojang) / destroyTexture(id) (Yarn, intermediary method_4615)
+  // unregisters the texture and closes it, which frees the NativeImage behind a DynamicTexture.
+  // Looked up once per texture manager class; runtimes without it get the texture closed in place.
+  private static final Map<Class<?>, MethodHandle> TEXTURE_RELEASERS = new ConcurrentHashMap<>();
+  // Animated capes by registered texture id; their frames are freed with the texture.
+  private static final Map<Object, CapeAnimation> ANIMATIONS = new ConcurrentHashMap<>();
+  private static final MethodHandle NO_TEXTURE_RELEASER = MethodHandles.constant(Object.class, null);
+  private static final String[] RELEASE_METHOD_NAMES = { "release", "destroyTexture", "method_4615" };
+  private static final String[] GET_TEXTURE_METHOD_NAMES = { "getTexture", "method_4619" };
+  private static boolean loggedMissingTextureRelease = false;
+
+  private static void releaseRegisteredTexture(Object textureId) {
+    final CapeAnimation animation = textureId == null ? null : ANIMATIONS.remove(textureId);
+    if (animation != null) animation.close();
+    backend.release(textureId);
+    final Object textureManager = currentTextureManager();
+    if (textureManager == null || textureId == null) return;
+
+    final Class<?> managerClass = textureManager.getClass();
+    MethodHandle releaser = TEXTURE_RELEASERS.get(managerClass);
+    if (releaser == null) {
+      final MethodHandle found = findTextureManagerMethod(managerClass, textureId.getClass(), RELEASE_METHOD_NAMES);
+      CapeMetrics.fallback("textureRelease", found == null ? "close_in_place" : "release_method");
+      releaser = found == null ? NO_TEXTURE_RELEASER : found;
+      TEXTURE_RELEASERS.put(managerClass, releaser);
     }
-  }
 
-  private static Object newDynamicTexture(Object nativeImage) {
-    if (!(nativeImage instanceof NativeImage)) return null;
-    for (Constructor<?> c : DynamicTexture.class.getDeclaredConstructors()) {
-      final Class<?>[] p = c.getParameterTypes();
-      if (p.length == 1 && p[0].isAssignableFrom(nativeImage.getClass())) {
-        try {
-          c.setAccessible(true);
-          return c.newInstance(nativeImage);
-        } catch (Exception ignored) {}
-      }
-      if (p.length == 2 && p[1].isAssignableFrom(nativeImage.getClass())) {
-        final Object firstArg = buildDynamicTextureNameArg(p[0]);
-        if (firstArg == null) continue;
-        try {
-          c.setAccessible(true);
-          return c.newInstance(firstArg, nativeImage);
-        } catch (Exception ignored) {}
+    try {
+      if (releaser != NO_TEXTURE_RELEASER) {
+        final Object ignored = (Object) releaser.invokeExact(textureManager, textureId);
+        return;
       }
+      closeTextureInPlace(textureManager, textureId);
+    } catch (Throwable t) {
+      CapeLog.warn("texture.releaseFailed", "failed to release cape texture", "textureId", textureId, "error", t);
     }
-    return null;
   }
 
-  private static Object newIdentifier(Class<?> cls, String namespace, String path) {
-
-    for (Constructor<?> c : cls.getDeclaredConstructors()) {
-      Class<?>[] p = c.getParameterTypes();
-      if (p.length == 2 && p[0] == String.class && p[1] == String.class) {
-        try {
-          c.setAccessible(true);
-          return c.newInstance(namespace, path);
-        } catch (Exception ignored) {}
-      }
-      if (p.length == 1 && p[0] == String.class) {
-        try {
-          c.setAccessible(true);
-          return c.newInstance(namespace + ":" + path);
-        } catch (Exception ignored) {}
-      }
+  // Fallback: the id stays registered but is never bound again, so closing the texture still
+  // returns its native memory.
+  private static void closeTextureInPlace(Object textureManager, Object textureId) throws Throwable {
+    final MethodHandle getter = findTextureManagerMethod(textureManager.getClass(), textureId.getClass(), GET_TEXTURE_METHOD_NAMES);
+    final Object texture = getter == null ? null : (Object) getter.invokeExact(textureManager, textureId);
+    if (texture instanceof AutoCloseable) {
+      ((AutoCloseable) texture).close();
+      return;
     }
+    if (!loggedMissingTextureRelease) {
+      loggedMissingTextureRelease = true;
+      CapeLog.warn("texture.noRelease", "no way to release cape textures", "textureManager", textureManager.getClass().getName());
+    }
+  }
 
-    for (Method m : cls.getDeclaredMethods()) {
-      if ((m.getModifiers() & java.lang.reflect.Modifier.STATIC) == 0) continue;
-      if (!cls.isAssignableFrom(m.getReturnType())) continue;
-      final Class<?>[] p = m.getParameterTypes();
-      if (p.length == 2 && p[0] == String.class && p[1] == String.class) {
+  private static MethodHandle findTextureManagerMethod(Class<?> managerClass, Class<?> idClass, String[] names) {
+    for (String name : names) {
+      for (Method m : allMethods(managerClass)) {
+        if (!m.getName().equals(name) || m.getParameterCount() != 1) continue;
+        if (java.lang.reflect.Modifier.isStatic(m.getModifiers())) continue;
+        if (!m.getParameterTypes()[0].isAssignableFrom(idClass)) continue;
         try {
-          m.setAccessible(true);
-          return m.invoke(null, namespace, path);
-        } catch (Exception ignored) {}
-      }
-      if (p.length == 1 && p[0] == String.class) {
-        try {
-          m.setAccessible(true);
-          return m.invoke(null, namespace + ":" + path);
-        } catch (Exception ignored) {}
+          return genericHandle(m);
+        } catch (Throwable ignored) {}
       }
->>>>>>> origin/main
     }
-
     return null;
   }
 
-<<<<<<< HEAD
   // -------------------------
   // Local-player detection
   // -------------------------
 
   private static boolean isLocalPlayerProfile(Object playerInfoLike) {
-    UUID localUuid = getConfiguredLocalPlayerUuid();
-    if (localUuid == null) return true; // if not configured, apply to local by default
-    UUID profileUuid = extractUuid(playerInfoLike, new IdentityHashMap<>(), 0);
-    if (profileUuid == null) return true;
-    return localUuid.equals(profileUuid);
-  }
-
-  private static UUID getConfiguredLocalPlayerUuid() {
-    String raw = String.valueOf(System.getProperty(PLAYER_UUID_PROPERTY, "")).trim();
-    if (raw.equals(cachedLocalUuidRaw)) return cachedLocalUuid;
-    cachedLocalUuidRaw = raw;
-
-=======
-  private static Class<?> findIdentifierParameterType(Object manager, Object texture) {
-    if (manager == null || texture == null) return null;
-    final Class<?> textureType = texture.getClass();
-    for (Method m : manager.getClass().getMethods()) {
-      if (m.getParameterCount() != 2) continue;
-      final Class<?>[] p = m.getParameterTypes();
-      if (!p[1].isAssignableFrom(textureType)) continue;
-      return p[0];
-    }
-    return null;
-  }
-
-  private static boolean registerTexture(Object manager, Object id, Object texture) {
-    for (Method m : manager.getClass().getMethods()) {
-      if (m.getParameterCount() != 2) continue;
-      Class<?>[] p = m.getParameterTypes();
-      if (!p[0].isInstance(id)) continue;
-      if (!p[1].isAssignableFrom(texture.getClass())) continue;
-      try {
-        m.invoke(manager, id, texture);
-        return true;
-      } catch (Exception ignored) {}
-    }
-    return false;
+    return isLocalPlayerUuid(profileUuidOf(playerInfoLike));
   }
 
-  private static Object coerceCapeForExpectedType(Class<?> expectedType, Object capeTextureId) {
-    if (capeTextureId == null) return null;
-    if (expectedType == null || isAssignable(expectedType, capeTextureId.getClass())) return capeTextureId;
-    final String typeName = String.valueOf(expectedType.getName());
-    if (!typeName.startsWith("net.minecraft.core.ClientAsset")) return null;
-    final Object wrapped = createClientAssetTexture(capeTextureId);
-    if (wrapped != null && isAssignable(expectedType, wrapped.getClass())) return wrapped;
-    return null;
-  }
-
-  private static Object createClientAssetTexture(Object textureId) {
-    if (textureId == null) return null;
-    if (cachedTextureId == textureId && cachedCapeTexture != null) return cachedCapeTexture;
-    try {
-      final Class<?> resourceTextureClass = Class.forName("net.minecraft.core.ClientAsset$ResourceTexture");
-      for (Constructor<?> c : resourceTextureClass.getDeclaredConstructors()) {
-        final Class<?>[] p = c.getParameterTypes();
-        if (p.length == 1 && isAssignable(p[0], textureId.getClass())) {
-          c.setAccessible(true);
-          return c.newInstance(textureId);
-        }
-        if (p.length == 2 && isAssignable(p[0], textureId.getClass()) && isAssignable(p[1], textureId.getClass())) {
-          c.setAccessible(true);
-          return c.newInstance(textureId, textureId);
-        }
-        if (p.length > 0 && isAssignable(p[0], textureId.getClass())) {
-          final Object[] args = new Object[p.length];
-          args[0] = textureId;
-          for (int i = 1; i < p.length; i++) {
-            if (isAssignable(p[i], textureId.getClass())) args[i] = textureId;
-            else if (!p[i].isPrimitive()) args[i] = null;
-            else args[i] = primitiveDefaultValue(p[i]);
-          }
-          c.setAccessible(true);
-          return c.newInstance(args);
-        }
-      }
-    } catch (Throwable ignored) {}
-    return null;
+  // With either uuid unknown (no launcher prop and no player in a world yet, or a profile the
+  // extractors can't read) the launcher cape still applies, as it did before per-player capes.
+  private static boolean isLocalPlayerUuid(UUID profileUuid) {
+    if (profileUuid == null) return true;
+    final UUID localUuid = localPlayerUuid();
+    return localUuid == null || localUuid.equals(profileUuid);
   }
 
-  private static Object primitiveDefaultValue(Class<?> primitiveType) {
-    if (primitiveType == boolean.class) return Boolean.FALSE;
-    if (primitiveType == byte.class) return Byte.valueOf((byte) 0);
-    if (primitiveType == short.class) return Short.valueOf((short) 0);
-    if (primitiveType == int.class) return Integer.valueOf(0);
-    if (primitiveType == long.class) return Long.valueOf(0L);
-    if (primitiveType == float.class) return Float.valueOf(0.0F);
-    if (primitiveType == double.class) return Double.valueOf(0.0D);
-    if (primitiveType == char.class) return Character.valueOf('\0');
-    return null;
+  // The launcher prop when set, otherwise the uuid of the client's own player entity.
+  private static UUID localPlayerUuid() {
+    final UUID configured = getConfiguredLocalPlayerUuid();
+    if (configured != null) return configured;
+    final Minecraft mc = Minecraft.getInstance();
+    final Object player = mc == null ? null : mc.player;
+    return player == null ? null : profileUuidOf(player);
   }
 
-  private static Object invokeNoArg(Object target, String... names) {
+  // A given PlayerInfo/entity never changes identity, so its uuid is cached per instance (weakly,
+  // by identity). Only hits are cached; misses go through the per-class extractor below.
+  static UUID profileUuidOf(Object target) {
     if (target == null) return null;
-    for (String n : names) {
-      try {
-        Method m = target.getClass().getMethod(n);
-        m.setAccessible(true);
-        return m.invoke(target);
-      } catch (Exception ignored) {}
+    final UUID cached = PROFILE_UUIDS.get(target);
+    if (cached != null) {
+      PROFILE_UUID_HITS.increment();
+      return cached;
     }
-    return null;
+    PROFILE_UUID_MISSES.increment();
+    final UUID found = extractUuidCached(target);
+    if (found != null) PROFILE_UUIDS.put(target, found);
+    return found;
   }
 
-  private static Object readFieldOrGetter(Object target, String fieldName, String... getters) {
-    if (target == null) return null;
-    try {
-      Field f = target.getClass().getDeclaredField(fieldName);
-      f.setAccessible(true);
-      Object v = f.get(target);
-      if (v != null) return v;
-    } catch (Exception ignored) {}
-    return invokeNoArg(target, getters);
+  // Visible for benchmarks: the uncached reflective scan that the extractors are compiled from.
+  static UUID scanProfileUuid(Object target) {
+    return extractUuid(target, new IdentityHashMap<>(), 0, new ArrayList<>());
   }
 
-  private static Object buildDynamicTextureNameArg(Class<?> type) {
-    if (type == String.class) return "fishbattery_launcher_cape";
-    if (Supplier.class.isAssignableFrom(type)) {
-      return (Supplier<String>) () -> "fishbattery_launcher_cape";
+  // The path to the uuid (getters/fields, possibly nested) depends only on the class, so it is
+  // discovered once by the reflective scan and then replayed as MethodHandles. A class whose path
+  // yields nothing is rescanned at most once per UUID_RESCAN_NANOS.
+  private static UUID extractUuidCached(Object target) {
+    final Class<?> cls = target.getClass();
+    final UuidExtractor known = UUID_EXTRACTORS.get(cls);
+    if (known != null) {
+      final UUID out = known.apply(target);
+      if (out != null) return out;
+      final long now = System.nanoTime();
+      if (now - known.rescanAtNanos < 0L) return null;
+      known.rescanAtNanos = now + UUID_RESCAN_NANOS;
     }
-    return null;
+    final List<Member> path = new ArrayList<>();
+    final UUID found = extractUuid(target, new IdentityHashMap<>(), 0, path);
+    if (found != null) {
+      UUID_EXTRACTORS.put(cls, UuidExtractor.compile(path));
+    } else if (known == null) {
+      UUID_EXTRACTORS.put(cls, new UuidExtractor(null, System.nanoTime() + UUID_RESCAN_NANOS));
+    }
+    return found;
   }
 
   private static UUID getConfiguredLocalPlayerUuid() {
+    if (!localPlayerUuidLoaded) refreshLocalPlayerUuid();
+    return localPlayerUuid;
+  }
+
+  private static void refreshLocalPlayerUuid() {
     final String raw = String.valueOf(System.getProperty(PLAYER_UUID_PROPERTY, "")).trim();
-    if (raw.equals(cachedLocalUuidRaw)) return cachedLocalUuid;
-    cachedLocalUuidRaw = raw;
->>>>>>> origin/main
-    if (raw.isEmpty()) {
-      cachedLocalUuid = null;
-      return null;
-    }
-    cachedLocalUuid = parseUuid(raw);
-    return cachedLocalUuid;
+    localPlayerUuid = raw.isEmpty() ? null : parseUuid(raw);
+    localPlayerUuidLoaded = true;
   }
 
-  private static UUID parseUuid(String value) {
-<<<<<<< HEAD
+  static UUID parseUuid(String value) {
     String raw = String.valueOf(value == null ? "" : value).trim();
     if (raw.isEmpty()) return null;
     try { return UUID.fromString(raw); } catch (Exception ignored) {}
     if (raw.length() == 32) {
       String dashed =
-=======
-    final String raw = String.valueOf(value == null ? "" : value).trim();
-    if (raw.isEmpty()) return null;
-    try {
-      return UUID.fromString(raw);
-    } catch (Exception ignored) {}
-    if (raw.length() == 32) {
-      final String dashed =
->>>>>>> origin/main
         raw.substring(0, 8) + "-" +
         raw.substring(8, 12) + "-" +
         raw.substring(12, 16) + "-" +
         raw.substring(16, 20) + "-" +
         raw.substring(20);
-<<<<<<< HEAD
       try { return UUID.fromString(dashed); } catch (Exception ignored) {}
-=======
-      try {
-        return UUID.fromString(dashed);
-      } catch (Exception ignored) {}
->>>>>>> origin/main
     }
     return null;
   }
 
-  private static UUID extractUuid(Object target, Map<Object, Boolean> seen, int depth) {
+  // Records the members walked to reach the uuid in `path`, so the walk can be compiled.
+  private static UUID extractUuid(Object target, Map<Object, Boolean> seen, int depth, List<Member> path) {
     if (target == null || depth > 4 || seen.containsKey(target)) return null;
     seen.put(target, Boolean.TRUE);
 
     if (target instanceof UUID) return (UUID) target;
 
     for (String name : new String[] { "id", "getId", "uuid", "getUuid", "getUUID" }) {
-      Object value = invokeNoArg(target, name);
-      if (value instanceof UUID) return (UUID) value;
+      try {
+        final Method method = target.getClass().getMethod(name);
+        method.setAccessible(true);
+        final Object value = method.invoke(target);
+        if (value instanceof UUID) {
+          path.add(method);
+          return (UUID) value;
+        }
+      } catch (Throwable ignored) {}
     }
 
     for (Method method : target.getClass().getMethods()) {
       if (method.getParameterCount() != 0) continue;
-<<<<<<< HEAD
-      if (method.getReturnType() == UUID.class) {
+      final Class<?> returnType = method.getReturnType();
+      if (returnType == UUID.class) {
         try {
           method.setAccessible(true);
-          Object out = method.invoke(target);
-          if (out instanceof UUID) return (UUID) out;
+          final Object out = method.invoke(target);
+          if (out instanceof UUID) {
+            path.add(method);
+            return (UUID) out;
+          }
+        } catch (Exception ignored) {}
+      }
+      if (returnType == Object.class || returnType.isPrimitive() || returnType.isArray()) continue;
+      final UUID nested = invokeNestedUuid(target, method, seen, depth, path);
+      if (nested != null) return nested;
+    }
+
+    Class<?> cursor = target.getClass();
+    while (cursor != null && cursor != Object.class) {
+      for (Field field : cursor.getDeclaredFields()) {
+        if (field.getType() == UUID.class) {
+          try {
+            field.setAccessible(true);
+            final Object out = field.get(target);
+            if (out instanceof UUID) {
+              path.add(field);
+              return (UUID) out;
+            }
+          } catch (Exception ignored) {}
+        }
+        if (field.getType().isPrimitive() || field.getType().isArray()) continue;
+        try {
+          field.setAccessible(true);
+          final Object nestedObject = field.get(target);
+          path.add(field);
+          final UUID nested = extractUuid(nestedObject, seen, depth + 1, path);
+          if (nested != null) return nested;
+          path.remove(path.size() - 1);
         } catch (Exception ignored) {}
       }
+      cursor = cursor.getSuperclass();
     }
 
     return null;
   }
 
+  private static UUID invokeNestedUuid(Object target, Method method, Map<Object, Boolean> seen, int depth, List<Member> path) {
+    try {
+      method.setAccessible(true);
+      final Object nestedObject = method.invoke(target);
+      path.add(method);
+      final UUID nested = extractUuid(nestedObject, seen, depth + 1, path);
+      if (nested == null) path.remove(path.size() - 1);
+      return nested;
+    } catch (Exception ignored) {
+      return null;
+    }
+  }
+
+  private static final class UuidExtractor {
+    final MethodHandle[] steps; // null: no known path for this class
+    volatile long rescanAtNanos;
+
+    UuidExtractor(MethodHandle[] steps, long rescanAtNanos) {
+      this.steps = steps;
+      this.rescanAtNanos = rescanAtNanos;
+    }
+
+    static UuidExtractor compile(List<Member> path) {
+      final MethodType stepType = MethodType.methodType(Object.class, Object.class);
+      final MethodHandles.Lookup lookup = MethodHandles.lookup();
+      final MethodHandle[] steps = new MethodHandle[path.size()];
+      try {
+        for (int i = 0; i < steps.length; i++) {
+          final Member member = path.get(i);
+          final MethodHandle handle = member instanceof Method
+            ? lookup.unreflect((Method) member)
+            : lookup.unreflectGetter((Field) member);
+          steps[i] = handle.asType(stepType);
+        }
+      } catch (Throwable t) {
+        return new UuidExtractor(null, System.nanoTime() + UUID_RESCAN_NANOS);
+      }
+      return new UuidExtractor(steps, System.nanoTime());
+    }
+
+    UUID apply(Object target) {
+      if (steps == null) return null;
+      Object cursor = target;
+      try {
+        for (MethodHandle step : steps) {
+          if (cursor == null) return null;
+          cursor = (Object) step.invokeExact(cursor);
+        }
+      } catch (Throwable t) {
+        return null;
+      }
+      return cursor instanceof UUID ? (UUID) cursor : null;
+    }
+  }
+
   // -------------------------
-  // Cape catalog helpers (unchanged)
+  // Cape catalog helpers
   // -------------------------
 
   public static List<CapeOption> getSelectableCapes() {
-    Path catalogPath = resolveCatalogPath();
-    if (catalogPath == null || !Files.isRegularFile(catalogPath)) return Collections.emptyList();
-    List<CapeOption> out = new ArrayList<>();
+    return currentCatalog().options;
+  }
+
+  /** Current snapshot, for callers that also want its search index. */
+  static CapeCatalog getCatalogSnapshot() {
+    return currentCatalog();
+  }
+
+  /**
+   * Returns the current catalog snapshot. Steady state is a couple of volatile reads; after a
+   * watcher event (or every second when the file can't be watched) the file is stat'ed, and it
+   * is only re-parsed when its size or mtime moved.
+   */
+  private static CapeCatalog currentCatalog() {
+    final Path catalogPath = resolveCatalogPath();
+    if (catalogPath == null) return CapeCatalog.EMPTY;
+    // Register the watch before reading so an edit racing the read still invalidates it.
+    final boolean watched = watchCatalog(catalogPath);
+    final CapeCatalog snapshot = catalogSnapshot;
+    final int generation = catalogGeneration;
+    if (catalogCheckedGeneration == generation && (watched || System.nanoTime() - catalogRecheckAtNanos < 0L)) {
+      return snapshot;
+    }
+
+    final CapeCatalog next = CapeCatalog.load(catalogPath, snapshot);
+    (next == snapshot ? CATALOG_REUSED : CATALOG_RELOADED).increment();
+    if (next != snapshot) {
+      catalogSnapshot = next;
+      // Catalog entries carry the cape paths/urls the shared textures were resolved from.
+      SHARED_CAPE_GENERATION.incrementAndGet();
+    }
+    catalogRecheckAtNanos = System.nanoTime() + FILE_RECHECK_NANOS;
+    catalogCheckedGeneration = generation;
+    return next;
+  }
+
+  private static synchronized boolean watchCatalog(Path catalogPath) {
+    if (catalogPath.equals(watchedCatalogPath)) return catalogWatched;
+    boolean watched;
     try {
-      List<String> lines = Files.readAllLines(catalogPath, StandardCharsets.UTF_8);
-      for (String rawLine : lines) {
-        String line = String.valueOf(rawLine).trim();
-        if (line.isEmpty() || line.startsWith("#")) continue;
-        if (!line.startsWith("cape\t")) continue;
-        String[] parts = line.split("\t", -1);
-        if (parts.length < 6) continue;
-        String id = decodeCatalogField(parts[1]);
-        if (id.isEmpty()) continue;
-        String name = decodeCatalogField(parts[2]);
-        String tier = decodeCatalogField(parts[3]).toLowerCase(Locale.ROOT);
-        String fullPath = decodeCatalogField(parts[4]);
-        String cloudUrl = decodeCatalogField(parts[5]);
-        out.add(new CapeOption(id, name.isEmpty() ? id : name, tier, fullPath, cloudUrl));
-      }
+      watched = FILE_WATCHER.watch(CapeFileWatcher.Topic.CATALOG, catalogPath);
+    } catch (Exception e) {
+      watched = false;
+    }
+    watchedCatalogPath = catalogPath;
+    catalogWatched = watched;
+    invalidateCatalog();
+    return watched;
+  }
+
+  private static void invalidateCatalog() {
+    catalogGeneration += 1;
+  }
+
+  // The launcher may rewrite the meta file while the game is running; follow its selection.
+  // Our own write-behind writes land here too; they may trail a newer click, so they're skipped.
+  private static void applyExternalMetaSelection() {
+    final Path metaPath = resolveMetaPath();
+    if (metaPath == null || !Files.isRegularFile(metaPath)) return;
+    try {
+      final String json = new String(Files.readAllBytes(metaPath), StandardCharsets.UTF_8);
+      if (SELECTION_WRITER.isOwnMetaWrite(json)) return;
+      final String capeId = readJsonStringField(json, "capeId");
+      if (capeId == null || capeId.equals(getSelectedCapeId())) return;
+      System.setProperty(CAPE_ID_PROPERTY, capeId);
+      final String tier = readJsonStringField(json, "tier");
+      final String fullPath = readJsonStringField(json, "fullPath");
+      final String cloudUrl = readJsonStringField(json, "cloudUrl");
+      System.setProperty(CAPE_TIER_PROPERTY, tier == null ? "" : tier);
+      System.setProperty(CAPE_PATH_PROPERTY, fullPath == null ? "" : fullPath);
+      System.setProperty(CAPE_URL_PROPERTY, cloudUrl == null ? "" : cloudUrl);
+      invalidateCapeSource();
+      CapeLog.info("selection.meta", "applied cape selection from meta", "capeId", capeId);
     } catch (Exception ignored) {}
-    return out;
   }
 
   public static String getSelectedCapeId() {
@@ -1273,19 +1596,14 @@ public final class LauncherCapeRuntime {
       System.setProperty(CAPE_URL_PROPERTY, "");
       System.setProperty(CAPE_ID_PROPERTY, "");
       System.setProperty(CAPE_TIER_PROPERTY, "");
-      cachedSourceKey = "";
-      cachedTextureId = null;
-      cachedCapeAsset = null;
-      saveSelectedCapeToCatalog("");
-      saveSelectedCapeToMeta("", "", "", "");
+      failedSourceKey = "";
+      releaseLocalTexture();
+      invalidateCapeSource();
+      saveSelection("", "", "", "");
       return true;
     }
 
-    List<CapeOption> options = getSelectableCapes();
-    CapeOption selected = null;
-    for (CapeOption option : options) {
-      if (id.equals(option.id)) { selected = option; break; }
-    }
+    final CapeOption selected = currentCatalog().find(id);
     if (selected == null) return false;
 
     System.setProperty(CAPE_PATH_PROPERTY, selected.fullPath);
@@ -1293,13 +1611,14 @@ public final class LauncherCapeRuntime {
     System.setProperty(CAPE_ID_PROPERTY, selected.id);
     System.setProperty(CAPE_TIER_PROPERTY, selected.tier);
 
+    // Keep the registered texture around: a remote cape keeps showing it until the new bytes
+    // arrive, and any other source replaces or drops it on the reload below.
     cachedSourceKey = "";
-    cachedTextureId = null;
-    cachedCapeAsset = null;
+    failedSourceKey = "";
+    invalidateCapeSource();
 
     reloadCapeTextureFromSystemProperties();
-    saveSelectedCapeToCatalog(selected.id);
-    saveSelectedCapeToMeta(selected.id, selected.tier, selected.fullPath, selected.cloudUrl);
+    saveSelection(selected.id, selected.tier, selected.fullPath, selected.cloudUrl);
     return true;
   }
 
@@ -1311,18 +1630,73 @@ public final class LauncherCapeRuntime {
     try (InputStream in = input) {
       return NativeImage.read(in);
     } catch (Exception e) {
-      System.err.println("[fishbattery_cape_bridge] readNativeImage error: " + e.getMessage());
+      CapeLog.warn("image.readError", "readNativeImage error", "error", e.getMessage());
       return null;
     }
   }
 
+  // HD capes wider than the upload limit are resized with NativeImage's own resampler, found by
+  // shape (int x, int y, int w, int h, NativeImage target) since its name differs per mapping.
+  private static NativeImage downscaleForUpload(NativeImage image) {
+    if (image == null) return null;
+    final int[] size = IMAGE_LIMITS.uploadSize(image.getWidth(), image.getHeight());
+    if (size[0] == image.getWidth() && size[1] == image.getHeight()) return image;
+
+    final MethodHandle resize = NativeImageResize.HANDLE;
+    if (resize == null) {
+      if (!loggedMissingImageResize) {
+        loggedMissingImageResize = true;
+        CapeLog.warn("image.noResize", "NativeImage resize unavailable; uploading HD capes at full size");
+      }
+      return image;
+    }
+
+    final NativeImage scaled = new NativeImage(size[0], size[1], false);
+    try {
+      resize.invokeExact((Object) image, (Object) 0, (Object) 0, (Object) image.getWidth(), (Object) image.getHeight(), (Object) scaled);
+      CapeLog.info("image.downscaled", "downscaled cape", "from", image.getWidth() + "x" + image.getHeight(), "to", size[0] + "x" + size[1]);
+      image.close();
+      return scaled;
+    } catch (Throwable t) {
+      scaled.close();
+      CapeLog.warn("image.downscaleFailed", "cape downscale failed, uploading full size", "error", t);
+      return image;
+    }
+  }
+
+  private static boolean loggedMissingImageResize = false;
+
+  private static final class NativeImageResize {
+    static final MethodHandle HANDLE = find();
+
+    private static MethodHandle find() {
+      Method match = null;
+      for (Method m : allMethods(NativeImage.class)) {
+        if (java.lang.reflect.Modifier.isStatic(m.getModifiers()) || m.getReturnType() != void.class) continue;
+        final Class<?>[] p = m.getParameterTypes();
+        if (p.length != 5 || p[4] != NativeImage.class) continue;
+        if (p[0] != int.class || p[1] != int.class || p[2] != int.class || p[3] != int.class) continue;
+        match = m;
+        if (m.getName().equals("resizeSubRectTo")) break;
+      }
+      if (match == null) return null;
+      try {
+        final MethodHandle handle = genericHandle(match);
+        return handle.asType(MethodType.methodType(void.class, Object.class, Object.class, Object.class, Object.class, Object.class, Object.class));
+      } catch (Throwable t) {
+        return null;
+      }
+    }
+  }
+
   private static CapeSource resolveCapeSource(String rawPath, String rawUrl) {
     if (!rawPath.isEmpty()) {
       try {
         Path path = Path.of(rawPath);
         if (Files.isRegularFile(path)) {
           long mtime = Files.getLastModifiedTime(path).toMillis();
-          byte[] b = Files.readAllBytes(path);
+          // Oversized files are not even read; the empty source fails the image gate.
+          byte[] b = Files.size(path) > IMAGE_LIMITS.maxBytes ? new byte[0] : Files.readAllBytes(path);
           return new CapeSource(b, "path:" + rawPath + ":" + mtime);
         }
       } catch (Exception ignored) {}
@@ -1340,35 +1714,56 @@ public final class LauncherCapeRuntime {
               : URLDecoder.decode(body, StandardCharsets.UTF_8).getBytes(StandardCharsets.UTF_8);
             return new CapeSource(bytes, "data:" + bytes.length);
           }
-        } else if (rawUrl.startsWith("http://") || rawUrl.startsWith("https://")) {
-          URL url = URI.create(rawUrl).toURL();
-          HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-          conn.setRequestMethod("GET");
-          conn.setConnectTimeout(5000);
-          conn.setReadTimeout(10000);
-          conn.setRequestProperty("User-Agent", "FishbatteryCapeBridge/1.0");
-          int status = conn.getResponseCode();
-          if (status >= 200 && status < 300) {
-            byte[] b = conn.getInputStream().readAllBytes();
-            return new CapeSource(b, "url:" + rawUrl);
+        } else if (isHttpUrl(rawUrl)) {
+          // Never block the render thread on the network: serve the last fetched bytes and let
+          // the fetcher invalidate the source snapshot once a (re)fetch brings new ones.
+          CapeHttpFetcher.Result fetched = HTTP_FETCHER.request(rawUrl);
+          if (fetched != null) {
+            return new CapeSource(fetched.bytes, "url:" + rawUrl + "#" + fetched.generation);
           }
-          conn.disconnect();
         }
       } catch (Exception ignored) {}
     }
     return null;
   }
 
+  // Bytes for a selector preview: the local file, else whatever the fetcher or disk cache already
+  // holds for the url. Never starts a download; null when nothing usable is around.
+  static byte[] previewBytes(String rawPath, String rawUrl) {
+    byte[] bytes = null;
+    if (rawPath != null && !rawPath.isEmpty()) {
+      try {
+        final Path path = Path.of(rawPath);
+        if (Files.isRegularFile(path) && Files.size(path) <= IMAGE_LIMITS.maxBytes) bytes = Files.readAllBytes(path);
+      } catch (Exception ignored) {}
+    }
+    if (bytes == null && rawUrl != null && isHttpUrl(rawUrl)) bytes = HTTP_FETCHER.peek(rawUrl);
+    return bytes == null || IMAGE_LIMITS.rejectReason(bytes) != null ? null : bytes;
+  }
+
+  private static boolean isHttpUrl(String rawUrl) {
+    return rawUrl.startsWith("http://") || rawUrl.startsWith("https://");
+  }
+
   private static final class CapeSource {
     final byte[] bytes;
-    final InputStream stream;
     final String cacheKey;
 
     CapeSource(byte[] bytes, String cacheKey) {
       this.bytes = bytes;
-      this.stream = bytes == null ? null : new java.io.ByteArrayInputStream(bytes);
       this.cacheKey = cacheKey;
     }
+
+    // "path", "data" or "url", for logs.
+    String kind() {
+      final int colon = cacheKey.indexOf(':');
+      return colon < 0 ? cacheKey : cacheKey.substring(0, colon);
+    }
+
+    // Sources outlive a single reload now, so every decode gets its own stream.
+    InputStream openStream() {
+      return bytes == null ? null : new java.io.ByteArrayInputStream(bytes);
+    }
   }
 
   // -------------------------
@@ -1378,237 +1773,116 @@ public final class LauncherCapeRuntime {
   private static final String PUBLIC_KEY_BASE64 =
     "MIICIjANBgkqhkiG9w0BAQEFAAOCAg8AMIICCgKCAgEAw7KqAjdgfUUjPOJwozb0XV4aLcnSd2v9hJQX47crxkLnifCE5MEVEvbwSImgslPAvlaRLt129joAlvgPCGZ1mID40EhiYQagtQAdnU4tZuGS9MOBPRBvepUlF5bbTiVpuC2J0qtt7KkKehcp+F6mWYXKzyApKZa3QiqeUk8QQ3Z8WaOog4ZPN+frup6J/UnUYHPFfeyKHW9jFS9VT7yWLSMtOpxwl+UP+Y+fXkubqaTX9WwnA/UxHRvVdlbbIGgYzF1iIWMrb7Ff6inUEv+Kjb3lvPKZfkK7THltj83q0GUf3FdH9u25qHCOapR3GD6nNBWkcY9amNJxRc6qvX87ErkBfBLRihKVyVt8nz/XLbWj0vwHvEhErmYWv/fd8crSqFUoud5dJPjRYz6D4E2qLb23mu7L32a/+O4Ds/EwAjdAbIMDFHliVoC4gYaLeRymW/Zu1mrBxaj5nxD+D6/KCBXmTigdcKvVHW3T8GRPHi9o0u8kVFeIQkuOxMmaPFCf1aNomdTulaZ54HwT+fe+DV6ykrYm5IxpSc1y3r//1BhSvYl0v++FAw9tyqfSet53W2rPBBUSr3nue/psTiGbn/D0mHiWPYd2F99luGpaCHVnn89Ya45ZvnCq36U/tWNwBnMv4HX7xGa5FTz5rqJoHftIxiNUH8r06dPirDUsjdkCAwEAAQ==";
 
-  private static boolean verifyCapeSignatureIfPresent(CapeSource source, String rawPath) {
-    try {
-      String sigProp = String.valueOf(System.getProperty("fishbattery.cape.sig", "")).trim();
-      byte[] signature = null;
-      if (!sigProp.isEmpty()) {
-        try { signature = Base64.getDecoder().decode(sigProp); } catch (Exception ignored) {}
-      }
-
-      if (signature == null && rawPath != null && !rawPath.isEmpty()) {
-        try {
-          Path sigPath = Path.of(rawPath + ".sig");
-          if (Files.isRegularFile(sigPath)) signature = Files.readAllBytes(sigPath);
-        } catch (Exception ignored) {}
-      }
+  private static final CapeSignatureVerifier SIGNATURES = new CapeSignatureVerifier(PUBLIC_KEY_BASE64);
 
-      if (signature == null || signature.length == 0) return false;
-      byte[] data = source.bytes;
-      if (data == null) return false;
-
-      byte[] pub = Base64.getDecoder().decode(PUBLIC_KEY_BASE64);
-      java.security.spec.X509EncodedKeySpec spec = new java.security.spec.X509EncodedKeySpec(pub);
-      java.security.KeyFactory kf = java.security.KeyFactory.getInstance("RSA");
-      java.security.PublicKey pk = kf.generatePublic(spec);
-      java.security.Signature sig = java.security.Signature.getInstance("SHA256withRSA");
-      sig.initVerify(pk);
-      sig.update(data);
-      return sig.verify(signature);
-    } catch (Throwable t) {
-      return false;
+  // Local cape: the launcher passes the signature as a prop; a <cape>.sig sidecar is the fallback.
+  private static byte[] readLocalCapeSignature(String rawPath) {
+    String sigProp = String.valueOf(System.getProperty("fishbattery.cape.sig", "")).trim();
+    if (!sigProp.isEmpty()) {
+      try { return Base64.getDecoder().decode(sigProp); } catch (Exception ignored) {}
     }
+    return readSidecarSignature(rawPath);
   }
 
-  // -------------------------
-  // Misc helpers
-  // -------------------------
-
-  private static Object invokeNoArg(Object target, String... names) {
-    if (target == null) return null;
-    for (String n : names) {
-      try {
-        Method m = target.getClass().getMethod(n);
-        m.setAccessible(true);
-        return m.invoke(target);
-      } catch (Throwable ignored) {}
-    }
-    return null;
-=======
-      final Class<?> returnType = method.getReturnType();
-      if (returnType == UUID.class) {
-        try {
-          method.setAccessible(true);
-          final Object out = method.invoke(target);
-          if (out instanceof UUID) return (UUID) out;
-        } catch (Exception ignored) {}
-      }
-      if (returnType == Object.class || returnType.isPrimitive() || returnType.isArray()) continue;
-      final UUID nested = invokeNestedUuid(target, method, seen, depth);
-      if (nested != null) return nested;
-    }
-
-    Class<?> cursor = target.getClass();
-    while (cursor != null && cursor != Object.class) {
-      for (Field field : cursor.getDeclaredFields()) {
-        if (field.getType() == UUID.class) {
-          try {
-            field.setAccessible(true);
-            final Object out = field.get(target);
-            if (out instanceof UUID) return (UUID) out;
-          } catch (Exception ignored) {}
-        }
-        if (field.getType().isPrimitive() || field.getType().isArray()) continue;
-        try {
-          field.setAccessible(true);
-          final Object nestedObject = field.get(target);
-          final UUID nested = extractUuid(nestedObject, seen, depth + 1);
-          if (nested != null) return nested;
-        } catch (Exception ignored) {}
-      }
-      cursor = cursor.getSuperclass();
-    }
-
+  // Other players' capes never see the local prop: the option's <path>.sig sidecar, else the
+  // catalog's signature field (the only source for a URL-only cape).
+  private static byte[] readOptionSignature(CapeOption option) {
+    final byte[] sidecar = readSidecarSignature(option.fullPath);
+    if (sidecar != null) return sidecar;
+    if (option.signature.isEmpty()) return null;
+    try { return Base64.getDecoder().decode(option.signature); } catch (Exception ignored) {}
     return null;
   }
 
-  private static UUID invokeNestedUuid(Object target, Method method, Map<Object, Boolean> seen, int depth) {
-    try {
-      method.setAccessible(true);
-      final Object nestedObject = method.invoke(target);
-      return extractUuid(nestedObject, seen, depth + 1);
-    } catch (Exception ignored) {
-      return null;
-    }
->>>>>>> origin/main
-  }
-
-  private static boolean parametersMatch(Class<?>[] types, Object[] args) {
-    if (types.length != args.length) return false;
-    for (int i = 0; i < types.length; i++) {
-      if (args[i] == null) {
-        if (types[i].isPrimitive()) return false;
-        continue;
-      }
-      if (!isAssignable(types[i], args[i].getClass())) return false;
+  private static byte[] readSidecarSignature(String rawPath) {
+    if (rawPath != null && !rawPath.isEmpty()) {
+      try {
+        Path sigPath = Path.of(rawPath + ".sig");
+        if (Files.isRegularFile(sigPath)) return Files.readAllBytes(sigPath);
+      } catch (Exception ignored) {}
     }
-    return true;
+    return null;
   }
 
-  private static boolean isAssignable(Class<?> target, Class<?> source) {
-    if (target.isAssignableFrom(source)) return true;
-    if (!target.isPrimitive()) return false;
-    if (target == boolean.class) return source == Boolean.class;
-    if (target == byte.class) return source == Byte.class;
-    if (target == short.class) return source == Short.class || source == Byte.class;
-    if (target == int.class) return source == Integer.class || source == Short.class || source == Byte.class;
-    if (target == long.class) return source == Long.class || source == Integer.class || source == Short.class || source == Byte.class;
-    if (target == float.class) return source == Float.class || source == Long.class || source == Integer.class;
-    if (target == double.class) return source == Double.class || source == Float.class || source == Long.class;
-    if (target == char.class) return source == Character.class;
-    return false;
-  }
+  // -------------------------
+  // Misc helpers
+  // -------------------------
 
   private static Path resolveCatalogPath() {
-<<<<<<< HEAD
     String raw = String.valueOf(System.getProperty(CAPE_CATALOG_PROPERTY, "")).trim();
+    // Hot on screen opens and shared cape lookups: only build a new Path when the prop changes.
+    final ResolvedPath cached = resolvedCatalogPath;
+    if (cached != null && cached.raw.equals(raw)) return cached.path;
+    Path resolved = null;
     if (!raw.isEmpty()) {
-      try { return Path.of(raw); } catch (Exception ignored) {}
+      try { resolved = Path.of(raw); } catch (Exception ignored) {}
     }
-    try { return Path.of(".fishbattery", "launcher-capes.txt"); } catch (Exception ignored) { return null; }
+    if (resolved == null) {
+      try { resolved = Path.of(".fishbattery", "launcher-capes.txt"); } catch (Exception ignored) {}
+    }
+    resolvedCatalogPath = new ResolvedPath(raw, resolved);
+    return resolved;
   }
 
-  private static Path resolveMetaPath() {
-    String raw = String.valueOf(System.getProperty(CAPE_META_PROPERTY, "")).trim();
-    if (raw.isEmpty()) return null;
-    try { return Path.of(raw); } catch (Exception ignored) { return null; }
-  }
+  private static final class ResolvedPath {
+    final String raw;
+    final Path path;
 
-  private static String decodeCatalogField(String value) {
-    try { return URLDecoder.decode(String.valueOf(value), StandardCharsets.UTF_8); }
-    catch (Exception ignored) { return String.valueOf(value); }
-=======
-    final String raw = String.valueOf(System.getProperty(CAPE_CATALOG_PROPERTY, "")).trim();
-    if (!raw.isEmpty()) {
-      try {
-        return Path.of(raw);
-      } catch (Exception ignored) {}
-    }
-    try {
-      return Path.of(".fishbattery", "launcher-capes.txt");
-    } catch (Exception ignored) {
-      return null;
+    ResolvedPath(String raw, Path path) {
+      this.raw = raw;
+      this.path = path;
     }
   }
 
   private static Path resolveMetaPath() {
-    final String raw = String.valueOf(System.getProperty(CAPE_META_PROPERTY, "")).trim();
+    String raw = String.valueOf(System.getProperty(CAPE_META_PROPERTY, "")).trim();
     if (raw.isEmpty()) return null;
-    try {
-      return Path.of(raw);
-    } catch (Exception ignored) {
-      return null;
-    }
+    try { return Path.of(raw); } catch (Exception ignored) { return null; }
   }
 
-  private static String decodeCatalogField(String value) {
-    try {
-      return URLDecoder.decode(String.valueOf(value), StandardCharsets.UTF_8);
-    } catch (Exception ignored) {
-      return String.valueOf(value);
-    }
->>>>>>> origin/main
+  private static void saveSelection(String capeId, String tier, String fullPath, String cloudUrl) {
+    SELECTION_WRITER.submit(resolveCatalogPath(), resolveMetaPath(), capeId, tier, fullPath, cloudUrl);
   }
 
-  private static String encodeCatalogField(String value) {
-    return java.net.URLEncoder.encode(String.valueOf(value == null ? "" : value), StandardCharsets.UTF_8);
+  // Reads a string field written by CapeSelectionWriter (only \\ and \" are escaped there).
+  private static String readJsonStringField(String json, String field) {
+    final java.util.regex.Matcher m = java.util.regex.Pattern
+      .compile("\"" + java.util.regex.Pattern.quote(field) + "\"\\s*:\\s*\"((?:[^\"\\\\]|\\\\.)*)\"")
+      .matcher(json);
+    if (!m.find()) return null;
+    return unescapeJson(m.group(1));
   }
 
-  private static void saveSelectedCapeToCatalog(String selectedCapeId) {
-<<<<<<< HEAD
-    Path catalogPath = resolveCatalogPath();
-    if (catalogPath == null || !Files.isRegularFile(catalogPath)) return;
-    try {
-      List<String> in = Files.readAllLines(catalogPath, StandardCharsets.UTF_8);
-      List<String> out = new ArrayList<>();
-=======
-    final Path catalogPath = resolveCatalogPath();
-    if (catalogPath == null || !Files.isRegularFile(catalogPath)) return;
-    try {
-      final List<String> in = Files.readAllLines(catalogPath, StandardCharsets.UTF_8);
-      final List<String> out = new ArrayList<>();
->>>>>>> origin/main
-      boolean replaced = false;
-      for (String line : in) {
-        if (String.valueOf(line).startsWith("selected=")) {
-          out.add("selected=" + encodeCatalogField(selectedCapeId));
-          replaced = true;
-        } else {
-          out.add(line);
-        }
+  private static String unescapeJson(String escaped) {
+    if (escaped.indexOf('\\') < 0) return escaped;
+    final StringBuilder out = new StringBuilder(escaped.length());
+    for (int i = 0; i < escaped.length(); i++) {
+      final char c = escaped.charAt(i);
+      if (c != '\\' || i + 1 >= escaped.length()) {
+        out.append(c);
+        continue;
       }
-      if (!replaced) out.add(0, "selected=" + encodeCatalogField(selectedCapeId));
-      Files.write(catalogPath, String.join("\n", out).concat("\n").getBytes(StandardCharsets.UTF_8));
-    } catch (Exception ignored) {}
-  }
-
-  private static void saveSelectedCapeToMeta(String capeId, String tier, String fullPath, String cloudUrl) {
-<<<<<<< HEAD
-    Path metaPath = resolveMetaPath();
-    if (metaPath == null) return;
-    try {
-      String json =
-=======
-    final Path metaPath = resolveMetaPath();
-    if (metaPath == null) return;
-    try {
-      final String json =
->>>>>>> origin/main
-        "{\n" +
-        "  \"capeId\": \"" + escapeJson(capeId) + "\",\n" +
-        "  \"tier\": \"" + escapeJson(tier) + "\",\n" +
-        "  \"fullPath\": \"" + escapeJson(fullPath) + "\",\n" +
-        "  \"cloudUrl\": \"" + escapeJson(cloudUrl) + "\",\n" +
-        "  \"updatedAt\": " + System.currentTimeMillis() + "\n" +
-        "}\n";
-      Files.write(metaPath, json.getBytes(StandardCharsets.UTF_8));
-    } catch (Exception ignored) {}
-  }
-
-  private static String escapeJson(String value) {
-    return String.valueOf(value == null ? "" : value)
-      .replace("\\", "\\\\")
-      .replace("\"", "\\\"");
+      final char next = escaped.charAt(++i);
+      switch (next) {
+        case 'n': out.append('\n'); break;
+        case 'r': out.append('\r'); break;
+        case 't': out.append('\t'); break;
+        case 'b': out.append('\b'); break;
+        case 'f': out.append('\f'); break;
+        case 'u':
+          if (i + 4 < escaped.length()) {
+            try {
+              out.append((char) Integer.parseInt(escaped.substring(i + 1, i + 5), 16));
+              i += 4;
+              break;
+            } catch (NumberFormatException ignored) {}
+          }
+          out.append(next);
+          break;
+        default: out.append(next);
+      }
+    }
+    return out.toString();
   }
 
   public static final class CapeOption {
@@ -1617,17 +1891,28 @@ public final class LauncherCapeRuntime {
     public final String tier;
     public final String fullPath;
     public final String cloudUrl;
+    // Per-frame time of an animated cape (a vertical strip of 2:1 frames); 0 for a still image.
+    public final int frameMillis;
+    // Base64 signature of the cape bytes for premium/founder capes without a .sig sidecar; "" if none.
+    public final String signature;
 
     public CapeOption(String id, String name, String tier, String fullPath, String cloudUrl) {
+      this(id, name, tier, fullPath, cloudUrl, 0);
+    }
+
+    public CapeOption(String id, String name, String tier, String fullPath, String cloudUrl, int frameMillis) {
+      this(id, name, tier, fullPath, cloudUrl, frameMillis, "");
+    }
+
+    public CapeOption(String id, String name, String tier, String fullPath, String cloudUrl, int frameMillis, String signature) {
       this.id = String.valueOf(id == null ? "" : id).trim();
       this.name = String.valueOf(name == null ? "" : name).trim();
       this.tier = String.valueOf(tier == null ? "free" : tier).trim().toLowerCase(Locale.ROOT);
       this.fullPath = String.valueOf(fullPath == null ? "" : fullPath).trim();
       this.cloudUrl = String.valueOf(cloudUrl == null ? "" : cloudUrl).trim();
+      this.frameMillis = Math.max(0, frameMillis);
+      this.signature = String.valueOf(signature == null ? "" : signature).trim();
     }
   }
 }
-<<<<<<< HEAD
 
-=======
->>>>>>> origin/main
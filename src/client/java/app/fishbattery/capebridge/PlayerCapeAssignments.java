@@ -0,0 +1,119 @@
+package app.fishbattery.capebridge;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+// uuid -> cape id table for other players, read from a launcher-written mapping file
+// (.fishbattery/player-capes.txt by default, or fishbattery.launcherCape.players):
+//   player<TAB><uuid><TAB><capeId>
+// Fields are URL-encoded like the cape catalog; blank lines and # comments are ignored.
+// The parsed table is swapped in whole, so render hooks read it without locking.
+public final class PlayerCapeAssignments {
+  static final String PLAYERS_PROPERTY = "fishbattery.launcherCape.players";
+  private static final long UNWATCHED_RECHECK_NANOS = 1_000_000_000L;
+
+  private final CapeFileWatcher watcher;
+  private volatile Map<UUID, String> table = Collections.emptyMap();
+  private volatile boolean stale = true;
+  private volatile long recheckAtNanos = 0L;
+  private Path watchedPath = null;
+  private boolean watched = false;
+  private String loadedStamp = "";
+
+  public PlayerCapeAssignments(CapeFileWatcher watcher) {
+    this.watcher = watcher;
+    if (watcher != null) watcher.addListener(CapeFileWatcher.Topic.PLAYERS, this::invalidate);
+  }
+
+  /** Cape id assigned to {@code uuid}, or {@code null} when the player has none. */
+  public String capeIdFor(UUID uuid) {
+    if (uuid == null) return null;
+    if (stale || System.nanoTime() - recheckAtNanos >= 0L) reload();
+    return table.get(uuid);
+  }
+
+  public void invalidate() {
+    stale = true;
+  }
+
+  private synchronized void reload() {
+    if (!stale && System.nanoTime() - recheckAtNanos < 0L) return;
+    stale = false;
+    final Path path = resolvePath();
+    if (path != null && !path.equals(watchedPath)) {
+      watchedPath = path;
+      try {
+        watched = watcher != null && watcher.watch(CapeFileWatcher.Topic.PLAYERS, path);
+      } catch (Exception e) {
+        watched = false;
+      }
+    }
+    // Watched files are only re-read on change events; otherwise stat them once a second.
+    recheckAtNanos = watched ? System.nanoTime() + Long.MAX_VALUE / 2 : System.nanoTime() + UNWATCHED_RECHECK_NANOS;
+
+    final String stamp = fileStamp(path);
+    if (stamp.equals(loadedStamp)) return;
+    loadedStamp = stamp;
+    if (stamp.isEmpty()) {
+      table = Collections.emptyMap();
+      return;
+    }
+    try {
+      table = parse(Files.readAllLines(path, StandardCharsets.UTF_8));
+      CapeLog.info("assignments.loaded", "loaded player cape assignments", "count", table.size(), "path", path);
+    } catch (Exception e) {
+      CapeLog.warn("assignments.readFailed", "failed to read player capes", "error", e.getMessage());
+      table = Collections.emptyMap();
+    }
+  }
+
+  static Map<UUID, String> parse(List<String> lines) {
+    final Map<UUID, String> out = new HashMap<>();
+    for (String rawLine : lines) {
+      final String line = String.valueOf(rawLine).trim();
+      if (line.isEmpty() || line.startsWith("#")) continue;
+      final String[] parts = line.split("\t", -1);
+      if (parts.length < 3 || !"player".equals(parts[0].toLowerCase(Locale.ROOT))) continue;
+      final UUID uuid = LauncherCapeRuntime.parseUuid(decode(parts[1]));
+      final String capeId = decode(parts[2]).trim();
+      if (uuid == null || capeId.isEmpty()) continue;
+      out.put(uuid, capeId);
+    }
+    return Collections.unmodifiableMap(out);
+  }
+
+  private static Path resolvePath() {
+    final String raw = String.valueOf(System.getProperty(PLAYERS_PROPERTY, "")).trim();
+    try {
+      return raw.isEmpty() ? Path.of(".fishbattery", "player-capes.txt") : Path.of(raw);
+    } catch (Exception ignored) {
+      return null;
+    }
+  }
+
+  private static String fileStamp(Path path) {
+    if (path == null) return "";
+    try {
+      if (!Files.isRegularFile(path)) return "";
+      return Files.getLastModifiedTime(path).toMillis() + ":" + Files.size(path);
+    } catch (Exception ignored) {
+      return "";
+    }
+  }
+
+  private static String decode(String value) {
+    try {
+      return URLDecoder.decode(String.valueOf(value), StandardCharsets.UTF_8);
+    } catch (Exception ignored) {
+      return String.valueOf(value);
+    }
+  }
+}
@@ -0,0 +1,161 @@
+package app.fishbattery.capebridge;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Remote uuid -> cape id lookups for players missing from the local player cape table.
+// Render hooks only enqueue: uuids seen within a short window are sent as one POST to the
+// configured endpoint (fishbattery.launcherCape.lookupUrl), one uuid per line. The endpoint
+// answers in the player table format (player<TAB>uuid<TAB>capeId); uuids it leaves out have no
+// cape and are cached negatively. A uuid is never queued twice while a lookup for it is pending.
+public final class RemoteCapeResolver {
+  static final String LOOKUP_URL_PROPERTY = "fishbattery.launcherCape.lookupUrl";
+  private static final String USER_AGENT = "FishbatteryCapeBridge/1.0";
+  private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(5);
+  private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(10);
+  private static final long DEFAULT_BATCH_WINDOW_MILLIS = 250L;
+  private static final int MAX_BATCH_SIZE = 256;
+  private static final long FOUND_TTL_NANOS = TimeUnit.MINUTES.toNanos(10);
+  private static final long MISSING_TTL_NANOS = TimeUnit.MINUTES.toNanos(5);
+  private static final long FAILED_RETRY_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+  private final HttpClient client;
+  private final URI endpoint;
+  private final long batchWindowMillis;
+  private final ScheduledExecutorService scheduler;
+  private final Map<UUID, Entry> entries = new ConcurrentHashMap<>();
+  private final Map<UUID, Boolean> queued = new ConcurrentHashMap<>();
+  private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+
+  private RemoteCapeResolver(HttpClient client, URI endpoint, long batchWindowMillis) {
+    this.client = client;
+    this.endpoint = endpoint;
+    this.batchWindowMillis = Math.max(0L, batchWindowMillis);
+    this.scheduler = Executors.newSingleThreadScheduledExecutor(CapeHttpFetcher.daemonThreads("fishbattery-cape-lookup"));
+  }
+
+  /** Resolver for the configured endpoint, or {@code null} when remote lookups are disabled. */
+  public static RemoteCapeResolver fromSystemProperties() {
+    final String raw = String.valueOf(System.getProperty(LOOKUP_URL_PROPERTY, "")).trim();
+    if (raw.isEmpty()) return null;
+    try {
+      final URI endpoint = URI.create(raw);
+      final String scheme = String.valueOf(endpoint.getScheme()).toLowerCase(Locale.ROOT);
+      if (!scheme.equals("http") && !scheme.equals("https")) throw new IllegalArgumentException("not an http(s) url");
+      final HttpClient client = HttpClient.newBuilder()
+        .connectTimeout(CONNECT_TIMEOUT)
+        .followRedirects(HttpClient.Redirect.NORMAL)
+        .executor(Executors.newCachedThreadPool(CapeHttpFetcher.daemonThreads("fishbattery-cape-lookup-http")))
+        .build();
+      return new RemoteCapeResolver(client, endpoint, DEFAULT_BATCH_WINDOW_MILLIS);
+    } catch (Exception e) {
+      CapeLog.warn("lookup.invalidUrl", "invalid cape lookup url", "url", raw, "error", e.getMessage());
+      return null;
+    }
+  }
+
+  /**
+   * Non-blocking: returns the cape id last resolved for {@code uuid}, or {@code null} when the
+   * player has none or no answer has arrived yet. Unknown and expired uuids are queued for the
+   * next batch; an expired answer keeps being served until its refresh completes.
+   */
+  public String lookup(UUID uuid) {
+    if (uuid == null) return null;
+    final Entry entry = entries.get(uuid);
+    if (entry != null && (entry.inFlight || System.nanoTime() - entry.expiresAtNanos < 0L)) return entry.capeId;
+    enqueue(uuid);
+    return entry == null ? null : entry.capeId;
+  }
+
+  private void enqueue(UUID uuid) {
+    if (queued.putIfAbsent(uuid, Boolean.TRUE) != null) return;
+    if (!flushScheduled.compareAndSet(false, true)) return;
+    try {
+      scheduler.schedule(this::flush, batchWindowMillis, TimeUnit.MILLISECONDS);
+    } catch (Exception e) {
+      flushScheduled.set(false);
+    }
+  }
+
+  private void flush() {
+    flushScheduled.set(false);
+    final List<UUID> batch = new ArrayList<>();
+    for (UUID uuid : queued.keySet()) {
+      queued.remove(uuid);
+      final Entry previous = entries.get(uuid);
+      if (previous != null && previous.inFlight) continue;
+      entries.put(uuid, new Entry(previous == null ? null : previous.capeId, true, 0L));
+      batch.add(uuid);
+      if (batch.size() == MAX_BATCH_SIZE) {
+        send(batch);
+        batch.clear();
+      }
+    }
+    if (!batch.isEmpty()) send(batch);
+  }
+
+  private void send(List<UUID> batch) {
+    final List<UUID> requested = new ArrayList<>(batch);
+    final StringBuilder body = new StringBuilder(requested.size() * 37);
+    for (UUID uuid : requested) body.append(uuid).append('\n');
+    try {
+      final HttpRequest request = HttpRequest.newBuilder(endpoint)
+        .timeout(REQUEST_TIMEOUT)
+        .header("User-Agent", USER_AGENT)
+        .header("Content-Type", "text/plain; charset=utf-8")
+        .POST(HttpRequest.BodyPublishers.ofString(body.toString(), StandardCharsets.UTF_8))
+        .build();
+      client.sendAsync(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8))
+        .whenComplete((response, error) -> onLookupComplete(requested, response, error));
+    } catch (Exception e) {
+      onLookupComplete(requested, null, e);
+    }
+  }
+
+  private void onLookupComplete(List<UUID> requested, HttpResponse<String> response, Throwable error) {
+    final int status = response == null ? -1 : response.statusCode();
+    final long now = System.nanoTime();
+    if (error != null || status < 200 || status >= 300) {
+      CapeLog.warn("lookup.failed", "cape lookup failed", "players", requested.size(),
+        "error", error != null ? error.getMessage() : "HTTP " + status);
+      for (UUID uuid : requested) {
+        final Entry previous = entries.get(uuid);
+        entries.put(uuid, new Entry(previous == null ? null : previous.capeId, false, now + FAILED_RETRY_NANOS));
+      }
+      return;
+    }
+
+    final Map<UUID, String> found = PlayerCapeAssignments.parse(Arrays.asList(String.valueOf(response.body()).split("\n")));
+    for (UUID uuid : requested) {
+      final String capeId = found.get(uuid);
+      entries.put(uuid, new Entry(capeId, false, now + (capeId == null ? MISSING_TTL_NANOS : FOUND_TTL_NANOS)));
+    }
+  }
+
+  private static final class Entry {
+    final String capeId;        // null: no cape (or not known yet)
+    final boolean inFlight;
+    final long expiresAtNanos;
+
+    Entry(String capeId, boolean inFlight, long expiresAtNanos) {
+      this.capeId = capeId;
+      this.inFlight = inFlight;
+      this.expiresAtNanos = expiresAtNanos;
+    }
+  }
+}
@@ -0,0 +1,111 @@
+package app.fishbattery.capebridge;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+
+// Small identity-keyed map with weakly held keys, for per-instance answers computed on render
+// hooks (e.g. "which uuid does this PlayerInfo belong to"). Unlike WeakHashMap it never calls
+// equals/hashCode on the key, and lookups don't allocate. Entries vanish with their key.
+final class WeakIdentityCache<V> {
+  private static final int INITIAL_CAPACITY = 64;
+
+  private final ReferenceQueue<Object> queue = new ReferenceQueue<>();
+  private Entry<V>[] table = newTable(INITIAL_CAPACITY);
+  private int size = 0;
+
+  synchronized V get(Object key) {
+    if (key == null) return null;
+    final int hash = System.identityHashCode(key);
+    for (Entry<V> e = table[indexFor(hash, table.length)]; e != null; e = e.next) {
+      if (e.hash == hash && e.get() == key) return e.value;
+    }
+    return null;
+  }
+
+  synchronized void put(Object key, V value) {
+    if (key == null) return;
+    expungeStale();
+    final int hash = System.identityHashCode(key);
+    final int index = indexFor(hash, table.length);
+    for (Entry<V> e = table[index]; e != null; e = e.next) {
+      if (e.hash == hash && e.get() == key) {
+        e.value = value;
+        return;
+      }
+    }
+    table[index] = new Entry<>(key, hash, value, table[index], queue);
+    if (++size > table.length * 3 / 4) resize();
+  }
+
+  synchronized void clear() {
+    while (queue.poll() != null) {}
+    table = newTable(INITIAL_CAPACITY);
+    size = 0;
+  }
+
+  synchronized int size() {
+    expungeStale();
+    return size;
+  }
+
+  private void expungeStale() {
+    Object ref;
+    while ((ref = queue.poll()) != null) {
+      @SuppressWarnings("unchecked")
+      final Entry<V> stale = (Entry<V>) ref;
+      final int index = indexFor(stale.hash, table.length);
+      Entry<V> prev = null;
+      for (Entry<V> e = table[index]; e != null; prev = e, e = e.next) {
+        if (e != stale) continue;
+        if (prev == null) table[index] = e.next;
+        else prev.next = e.next;
+        e.value = null;
+        size--;
+        break;
+      }
+    }
+  }
+
+  private void resize() {
+    final Entry<V>[] next = newTable(table.length * 2);
+    for (Entry<V> head : table) {
+      Entry<V> e = head;
+      while (e != null) {
+        final Entry<V> following = e.next;
+        if (e.get() == null) {
+          // Still queued; it will be looked up in the old table and not found, which is fine.
+          e.value = null;
+          size--;
+        } else {
+          final int index = indexFor(e.hash, next.length);
+          e.next = next[index];
+          next[index] = e;
+        }
+        e = following;
+      }
+    }
+    table = next;
+  }
+
+  private static int indexFor(int hash, int length) {
+    return (hash ^ (hash >>> 16)) & (length - 1);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <V> Entry<V>[] newTable(int capacity) {
+    return (Entry<V>[]) new Entry<?>[capacity];
+  }
+
+  private static final class Entry<V> extends WeakReference<Object> {
+    final int hash;
+    V value;
+    Entry<V> next;
+
+    Entry(Object key, int hash, V value, Entry<V> next, ReferenceQueue<Object> queue) {
+      super(key, queue);
+      this.hash = hash;
+      this.value = value;
+      this.next = next;
+    }
+  }
+}
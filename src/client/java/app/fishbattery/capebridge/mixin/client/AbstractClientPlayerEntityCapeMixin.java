@@ -1,12 +1,13 @@
 package app.fishbattery.capebridge.mixin.client;
 
+import app.fishbattery.capebridge.CapeMetrics;
 import app.fishbattery.capebridge.LauncherCapeRuntime;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
 
-// Local-player cape overrides for AbstractClientPlayerEntity paths.
+// Launcher cape overrides (local selection + player cape table) for AbstractClientPlayerEntity paths.
 // We hook both legacy cape getters and modern skin-composite getters so launcher
 // capes continue to work across mapping/version differences.
 @Mixin(targets = "net.minecraft.client.network.AbstractClientPlayerEntity")
@@ -14,15 +15,17 @@ abstract class AbstractClientPlayerEntityCapeMixin {
 
   @Inject(method = "getCapeTexture", at = @At("HEAD"), cancellable = true, require = 0)
   private void fishbattery$replaceCapeTexture(CallbackInfoReturnable<Object> cir) {
+    CapeMetrics.hook(CapeMetrics.Hook.ABSTRACT_CLIENT_PLAYER_CAPE);
     // Legacy path: directly replace Identifier/ResourceLocation cape texture.
-    final Object cape = LauncherCapeRuntime.tryGetCapeTextureIdForLocalPlayer(this);
+    final Object cape = LauncherCapeRuntime.tryGetCapeTextureIdForPlayer(this);
     if (cape != null) cir.setReturnValue(cape);
   }
 
   @Inject(method = "getSkinTextures", at = @At("RETURN"), cancellable = true, require = 0)
   private void fishbattery$replaceCapeOnGetSkinTextures(CallbackInfoReturnable<Object> cir) {
+    CapeMetrics.hook(CapeMetrics.Hook.ABSTRACT_CLIENT_PLAYER_CAPE);
     // Modern path: rewrite cape field on composite skin payload.
-    final Object newCape = LauncherCapeRuntime.tryGetCapeTextureForLocalPlayer(this);
+    final Object newCape = LauncherCapeRuntime.tryGetCapeTextureForPlayer(this);
     if (newCape == null) return;
 
     final Object skin = cir.getReturnValue();
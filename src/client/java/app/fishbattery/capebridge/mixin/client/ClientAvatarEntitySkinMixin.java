@@ -1,5 +1,6 @@
 package app.fishbattery.capebridge.mixin.client;
 
+import app.fishbattery.capebridge.CapeMetrics;
 import app.fishbattery.capebridge.LauncherCapeRuntime;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.injection.At;
@@ -12,7 +13,8 @@ import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
 abstract class ClientAvatarEntitySkinMixin {
   @Inject(method = "getSkin", at = @At("RETURN"), cancellable = true, require = 0)
   private void fishbattery$replaceCapeOnGetSkin(CallbackInfoReturnable<Object> cir) {
-    final Object newCape = LauncherCapeRuntime.tryGetCapeTextureForLocalPlayer(this);
+    CapeMetrics.hook(CapeMetrics.Hook.CLIENT_AVATAR_SKIN);
+    final Object newCape = LauncherCapeRuntime.tryGetCapeTextureForPlayer(this);
     if (newCape == null) return;
 
     final Object skin = cir.getReturnValue();
@@ -1,6 +1,7 @@
 package app.fishbattery.capebridge.mixin.client;
 
 import app.fishbattery.capebridge.CapeMenuBridge;
+import app.fishbattery.capebridge.CapeMetrics;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
@@ -11,6 +12,7 @@ import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 abstract class GameMenuScreenCapeButtonMixin {
   @Inject(method = "init", at = @At("TAIL"), require = 0)
   private void fishbattery$addCapeButton(CallbackInfo ci) {
+    CapeMetrics.hook(CapeMetrics.Hook.GAME_MENU_BUTTON);
     // TAIL ensures vanilla widgets are present before bridge positions/attaches button.
     CapeMenuBridge.tryAttachToScreen(this, true);
   }
@@ -1,6 +1,7 @@
 package app.fishbattery.capebridge.mixin.client;
 
 import app.fishbattery.capebridge.CapeMenuBridge;
+import app.fishbattery.capebridge.CapeMetrics;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
@@ -11,6 +12,7 @@ import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 abstract class PauseScreenCapeButtonMixin {
   @Inject(method = "init", at = @At("TAIL"), require = 0)
   private void fishbattery$addCapeButton(CallbackInfo ci) {
+    CapeMetrics.hook(CapeMetrics.Hook.PAUSE_SCREEN_BUTTON);
     // Attach after screen init so button placement can account for existing controls.
     CapeMenuBridge.tryAttachToScreen(this, true);
   }
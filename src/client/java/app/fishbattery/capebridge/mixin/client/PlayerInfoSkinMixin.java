@@ -1,5 +1,6 @@
 package app.fishbattery.capebridge.mixin.client;
 
+import app.fishbattery.capebridge.CapeMetrics;
 import app.fishbattery.capebridge.LauncherCapeRuntime;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.injection.At;
@@ -9,7 +10,7 @@ import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
 @Mixin(targets = "net.minecraft.client.multiplayer.PlayerInfo")
 abstract class PlayerInfoSkinMixin {
   private void fishbattery$tryReplace(CallbackInfoReturnable<Object> cir) {
-    final Object capeTexture = LauncherCapeRuntime.tryGetCapeTextureForLocalPlayer(this);
+    final Object capeTexture = LauncherCapeRuntime.tryGetCapeTextureForPlayer(this);
     if (capeTexture == null) return;
     final Object currentSkin = cir.getReturnValue();
     if (currentSkin == null) return;
@@ -19,6 +20,7 @@ abstract class PlayerInfoSkinMixin {
 
   @Inject(method = "getSkin", at = @At("RETURN"), cancellable = true, require = 0)
   private void fishbattery$replaceCapeOnGetSkin(CallbackInfoReturnable<Object> cir) {
+    CapeMetrics.hook(CapeMetrics.Hook.PLAYER_INFO_SKIN);
     fishbattery$tryReplace(cir);
   }
 }
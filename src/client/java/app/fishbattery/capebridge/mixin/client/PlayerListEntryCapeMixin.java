@@ -1,5 +1,6 @@
 package app.fishbattery.capebridge.mixin.client;
 
+import app.fishbattery.capebridge.CapeMetrics;
 import app.fishbattery.capebridge.LauncherCapeRuntime;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.injection.At;
@@ -10,7 +11,8 @@ import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
 abstract class PlayerListEntryCapeMixin {
   @Inject(method = "getCapeTexture", at = @At("HEAD"), cancellable = true, require = 0)
   private void fishbattery$replaceCapeTexture(CallbackInfoReturnable<Object> cir) {
-    Object texture = LauncherCapeRuntime.tryGetCapeTextureForLocalPlayer(this);
+    CapeMetrics.hook(CapeMetrics.Hook.PLAYER_LIST_ENTRY_CAPE);
+    Object texture = LauncherCapeRuntime.tryGetCapeTextureForPlayer(this);
     if (texture != null) cir.setReturnValue(texture);
   }
 }
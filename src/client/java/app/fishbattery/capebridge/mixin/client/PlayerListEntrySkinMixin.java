@@ -1,5 +1,7 @@
 package app.fishbattery.capebridge.mixin.client;
 
+import app.fishbattery.capebridge.CapeLog;
+import app.fishbattery.capebridge.CapeMetrics;
 import app.fishbattery.capebridge.LauncherCapeRuntime;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.injection.At;
@@ -8,39 +10,25 @@ import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
 
 @Mixin(targets = "net.minecraft.client.network.PlayerListEntry")
 abstract class PlayerListEntrySkinMixin {
-<<<<<<< HEAD
   private static boolean fishbattery$loggedCapeTextureHook = false;
 
   @Inject(method = "getCapeTexture", at = @At("HEAD"), cancellable = true, require = 0)
   private void fishbattery$replaceCapeTexture(CallbackInfoReturnable<Object> cir) {
-    final Object cape = LauncherCapeRuntime.tryGetCapeTextureIdForLocalPlayer(this);
+    CapeMetrics.hook(CapeMetrics.Hook.PLAYER_LIST_ENTRY_SKIN);
+    final Object cape = LauncherCapeRuntime.tryGetCapeTextureIdForPlayer(this);
     if (cape != null) {
       if (!fishbattery$loggedCapeTextureHook) {
         fishbattery$loggedCapeTextureHook = true;
-        System.err.println("[fishbattery_cape_bridge] getCapeTexture hook returned launcher texture id");
+        CapeLog.info("hook.getCapeTexture", "getCapeTexture hook returned launcher texture id");
       }
       cir.setReturnValue(cape);
     }
-=======
-  private void fishbattery$tryReplace(CallbackInfoReturnable<Object> cir) {
-    final Object capeTexture = LauncherCapeRuntime.tryGetCapeTextureForLocalPlayer(this);
-    if (capeTexture == null) return;
-    final Object currentSkin = cir.getReturnValue();
-    if (currentSkin == null) return;
-    final Object replacedSkin = LauncherCapeRuntime.tryReplaceCapeOnSkin(currentSkin, capeTexture);
-    if (replacedSkin != null) cir.setReturnValue(replacedSkin);
-  }
-
-  @Inject(method = "getSkin", at = @At("RETURN"), cancellable = true, require = 0)
-  private void fishbattery$replaceCapeOnGetSkin(CallbackInfoReturnable<Object> cir) {
-    fishbattery$tryReplace(cir);
->>>>>>> origin/main
   }
 
   @Inject(method = "getSkinTextures", at = @At("RETURN"), cancellable = true, require = 0)
   private void fishbattery$replaceCapeOnGetSkinTextures(CallbackInfoReturnable<Object> cir) {
-<<<<<<< HEAD
-    final Object newCape = LauncherCapeRuntime.tryGetCapeTextureForLocalPlayer(this);
+    CapeMetrics.hook(CapeMetrics.Hook.PLAYER_LIST_ENTRY_SKIN);
+    final Object newCape = LauncherCapeRuntime.tryGetCapeTextureForPlayer(this);
     if (newCape == null) return;
 
     final Object skin = cir.getReturnValue();
@@ -53,7 +41,8 @@ abstract class PlayerListEntrySkinMixin {
   // Keep getSkin() too, for versions/mods that still use it
   @Inject(method = "getSkin", at = @At("RETURN"), cancellable = true, require = 0)
   private void fishbattery$replaceCapeOnGetSkin(CallbackInfoReturnable<Object> cir) {
-    final Object newCape = LauncherCapeRuntime.tryGetCapeTextureForLocalPlayer(this);
+    CapeMetrics.hook(CapeMetrics.Hook.PLAYER_LIST_ENTRY_SKIN);
+    final Object newCape = LauncherCapeRuntime.tryGetCapeTextureForPlayer(this);
     if (newCape == null) return;
 
     final Object skin = cir.getReturnValue();
@@ -63,9 +52,3 @@ abstract class PlayerListEntrySkinMixin {
     if (replaced != null) cir.setReturnValue(replaced);
   }
 }
-=======
-    fishbattery$tryReplace(cir);
-  }
-}
-
->>>>>>> origin/main
@@ -0,0 +1,20 @@
+package app.fishbattery.capebridge.mixin.client;
+
+import app.fishbattery.capebridge.CapeMetrics;
+import app.fishbattery.capebridge.CapeSelectorScreen;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Coerce;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+// Draw cape previews over the selector's rows once widgets are rendered. The first render arg is
+// GuiGraphics or PoseStack depending on version, so it is taken as Object.
+@Mixin(targets = "net.minecraft.client.gui.screens.Screen")
+abstract class ScreenCapeThumbnailMixin {
+  @Inject(method = "render", at = @At("TAIL"), require = 0)
+  private void fishbattery$renderCapeThumbnails(@Coerce Object graphics, int mouseX, int mouseY, float partialTick, CallbackInfo ci) {
+    CapeMetrics.hook(CapeMetrics.Hook.SCREEN_THUMBNAILS);
+    if ((Object) this instanceof CapeSelectorScreen) ((CapeSelectorScreen) (Object) this).renderThumbnails(graphics);
+  }
+}
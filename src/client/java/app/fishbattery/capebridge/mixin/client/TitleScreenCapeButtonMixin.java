@@ -1,6 +1,7 @@
 package app.fishbattery.capebridge.mixin.client;
 
 import app.fishbattery.capebridge.CapeMenuBridge;
+import app.fishbattery.capebridge.CapeMetrics;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
@@ -10,6 +11,7 @@ import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 abstract class TitleScreenCapeButtonMixin {
   @Inject(method = "init", at = @At("TAIL"), require = 0)
   private void fishbattery$addCapeButton(CallbackInfo ci) {
+    CapeMetrics.hook(CapeMetrics.Hook.TITLE_SCREEN_BUTTON);
     CapeMenuBridge.tryAttachToScreen(this, false);
   }
 }
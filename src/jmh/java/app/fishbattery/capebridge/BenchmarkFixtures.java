@@ -0,0 +1,163 @@
+package app.fishbattery.capebridge;
+
+import com.mojang.blaze3d.platform.NativeImage;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.imageio.ImageIO;
+
+// Stand-ins for the Minecraft types the runtime reflects over, plus a throwaway launcher
+// environment (cape file, catalog, meta, disk cache dir) so the runtime can run without a client.
+// Capes are real 64x32 PNGs and go through the runtime's own decode and registration path; only
+// the texture manager they are registered with is a stand-in.
+final class BenchmarkFixtures {
+  static final UUID LOCAL_UUID = UUID.fromString("0f0f0f0f-1111-2222-3333-444455556666");
+  static final String[] CAPE_IDS = { "fishbattery_founder", "fishbattery_classic" };
+
+  private static Path root = null;
+
+  private BenchmarkFixtures() {}
+
+  /**
+   * Points every launcher prop at a temp directory and binds the runtime to the stand-in types.
+   * Must run before LauncherCapeRuntime is otherwise touched so its disk cache and watchers never
+   * see the working directory.
+   */
+  static synchronized Path install() throws IOException {
+    if (root != null) return root;
+    root = Files.createTempDirectory("fishbattery-jmh");
+    final Path capes = Files.createDirectories(root.resolve("capes"));
+    final StringBuilder catalog = new StringBuilder("# fishbattery benchmark catalog\n");
+    for (String id : CAPE_IDS) {
+      final Path cape = capes.resolve(id + ".png");
+      writeCape(cape);
+      catalog.append("cape\t").append(id).append('\t').append(id).append("\tfree\t")
+        .append(cape.toAbsolutePath()).append("\thttps://capes.example/").append(id).append(".png\n");
+    }
+    final Path catalogPath = root.resolve("launcher-capes.txt");
+    Files.write(catalogPath, catalog.toString().getBytes(StandardCharsets.UTF_8));
+
+    System.setProperty("fishbattery.launcherCape.cacheDir", root.resolve("cape-cache").toString());
+    System.setProperty("fishbattery.launcherCape.catalog", catalogPath.toString());
+    System.setProperty("fishbattery.launcherCape.meta", root.resolve("meta.json").toString());
+    System.setProperty("fishbattery.launcherPlayer.uuid", LOCAL_UUID.toString());
+    System.setProperty("fishbattery.launcherCape.id", CAPE_IDS[0]);
+    System.setProperty("fishbattery.launcherCape.tier", "free");
+    System.setProperty("fishbattery.launcherCape.url", "");
+    System.setProperty("fishbattery.launcherCape.path", capes.resolve(CAPE_IDS[0] + ".png").toAbsolutePath().toString());
+    // No game classes to probe here; the hooks accept the stand-in identifier instead.
+    LauncherCapeRuntime.useBackend(CapeTextureBackends.identifier(StandInIdentifier.class));
+    LauncherCapeRuntime.useTextureManager(new TextureManagerStandIn());
+    return root;
+  }
+
+  private static void writeCape(Path path) throws IOException {
+    final BufferedImage image = new BufferedImage(64, 32, BufferedImage.TYPE_INT_ARGB);
+    for (int y = 0; y < 32; y++) {
+      for (int x = 0; x < 64; x++) image.setRGB(x, y, 0xFF000000 | (x * 4) << 16 | (y * 8) << 8);
+    }
+    if (!ImageIO.write(image, "png", path.toFile())) throw new IOException("no PNG writer");
+  }
+
+  // -------------------------
+  // Stand-in Minecraft types
+  // -------------------------
+
+  // Plays ResourceLocation/Identifier: the benchmark backends are bound to this class.
+  static final class StandInIdentifier {
+    private final String namespace;
+    private final String path;
+
+    StandInIdentifier(String namespace, String path) {
+      this.namespace = namespace;
+      this.path = path;
+    }
+
+    public String getNamespace() {
+      return namespace;
+    }
+
+    public String getPath() {
+      return path;
+    }
+
+    @Override
+    public String toString() {
+      return namespace + ":" + path;
+    }
+  }
+
+  // TextureManager in the Yarn registerDynamicTexture(String, NativeImage) shape, the first one the
+  // runtime probes. It owns the uploaded images and frees them when a texture is released.
+  static final class TextureManagerStandIn {
+    private final Map<StandInIdentifier, NativeImage> textures = new ConcurrentHashMap<>();
+
+    public StandInIdentifier registerDynamicTexture(String name, NativeImage image) {
+      final StandInIdentifier id = new StandInIdentifier("fishbattery", name);
+      textures.put(id, image);
+      return id;
+    }
+
+    public void release(StandInIdentifier id) {
+      final NativeImage image = textures.remove(id);
+      if (image != null) image.close();
+    }
+  }
+
+  enum ModelStandIn { WIDE, SLIM }
+
+  // PlayerSkin(body, cape, elytra, model, secure) layout, with identifier slots
+  record PlayerSkinStandIn(StandInIdentifier body, StandInIdentifier cape, StandInIdentifier elytra, ModelStandIn model, boolean secure) {}
+
+  // 1.20.2 - 1.21.8 SkinTextures(texture, textureUrl, capeTexture, elytraTexture, model, secure)
+  record SkinTexturesStandIn(StandInIdentifier texture, String textureUrl, StandInIdentifier capeTexture, StandInIdentifier elytraTexture, ModelStandIn model, boolean secure) {}
+
+  // GameProfile: the uuid sits one level below PlayerInfo/PlayerListEntry.
+  static final class GameProfileStandIn {
+    private final UUID id;
+    private final String name;
+
+    GameProfileStandIn(UUID id, String name) {
+      this.id = id;
+      this.name = name;
+    }
+
+    public UUID getId() {
+      return id;
+    }
+
+    public String getName() {
+      return name;
+    }
+  }
+
+  // PlayerInfo / PlayerListEntry: no uuid getter of its own, so extraction has to recurse.
+  static final class PlayerInfoStandIn {
+    private final GameProfileStandIn profile;
+    private final int latency;
+    private final Object skin;
+
+    PlayerInfoStandIn(GameProfileStandIn profile, int latency, Object skin) {
+      this.profile = profile;
+      this.latency = latency;
+      this.skin = skin;
+    }
+
+    public GameProfileStandIn getProfile() {
+      return profile;
+    }
+
+    public int getLatency() {
+      return latency;
+    }
+
+    public Object getSkin() {
+      return skin;
+    }
+  }
+}
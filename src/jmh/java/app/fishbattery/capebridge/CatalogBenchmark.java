@@ -0,0 +1,87 @@
+package app.fishbattery.capebridge;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Selector-screen paths: listing the catalog and switching the selected cape (which queues the
+// selection for the write-behind writer), plus lookups, paging and filter-box searches over a
+// large binary catalog.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CatalogBenchmark {
+  private static final int LARGE_CATALOG_SIZE = 50_000;
+  private static final int PAGE_ROWS = 8;
+  // What typing "cape 12" produces, one keystroke at a time.
+  private static final String[] SEARCH_KEYSTROKES = { "c", "ca", "cap", "cape", "cape ", "cape 1", "cape 12" };
+
+  private int next = 0;
+  private BinaryCapeCatalog largeCatalog;
+  private CapeSearchIndex largeIndex;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    BenchmarkFixtures.install();
+    if (LauncherCapeRuntime.getSelectableCapes().isEmpty()) {
+      throw new IllegalStateException("benchmark catalog is empty");
+    }
+
+    final List<LauncherCapeRuntime.CapeOption> options = new ArrayList<>(LARGE_CATALOG_SIZE);
+    for (int i = 0; i < LARGE_CATALOG_SIZE; i++) {
+      final String id = "cape_" + i;
+      options.add(new LauncherCapeRuntime.CapeOption(id, "Cape " + i, "free", "/capes/" + id + ".png", "https://capes.example/" + id + ".png"));
+    }
+    final Path file = BenchmarkFixtures.install().resolve("large-catalog.bin");
+    BinaryCapeCatalog.write(file, options);
+    largeCatalog = BinaryCapeCatalog.open(file);
+    largeIndex = CapeSearchIndex.build(largeCatalog.asList());
+  }
+
+  @Benchmark
+  public List<LauncherCapeRuntime.CapeOption> selectableCapes() {
+    return LauncherCapeRuntime.getSelectableCapes();
+  }
+
+  @Benchmark
+  public boolean selectCapeById() {
+    next = (next + 1) % BenchmarkFixtures.CAPE_IDS.length;
+    return LauncherCapeRuntime.selectCapeById(BenchmarkFixtures.CAPE_IDS[next]);
+  }
+
+  @Benchmark
+  public LauncherCapeRuntime.CapeOption largeBinaryFind() {
+    next = (next + 7919) % LARGE_CATALOG_SIZE;
+    return largeCatalog.find("cape_" + next);
+  }
+
+  @Benchmark
+  public int largeBinaryPage() {
+    next = (next + PAGE_ROWS) % (LARGE_CATALOG_SIZE - PAGE_ROWS);
+    int chars = 0;
+    for (LauncherCapeRuntime.CapeOption option : largeCatalog.asList().subList(next, next + PAGE_ROWS)) chars += option.name.length();
+    return chars;
+  }
+
+  @Benchmark
+  public int largeSearchKeystroke() {
+    next = (next + 1) % SEARCH_KEYSTROKES.length;
+    final int[] matches = largeIndex.search(SEARCH_KEYSTROKES[next]);
+    return matches == null ? -1 : matches.length;
+  }
+}
@@ -0,0 +1,78 @@
+package app.fishbattery.capebridge;
+
+import app.fishbattery.capebridge.BenchmarkFixtures.GameProfileStandIn;
+import app.fishbattery.capebridge.BenchmarkFixtures.PlayerInfoStandIn;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+// Per-frame cost of the mixin entry points: texture lookups for the local player, for a full
+// tab list of remote players, and the uuid extraction they are gated on.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HotPathBenchmark {
+  private static final int TAB_LIST_SIZE = 100;
+
+  private PlayerInfoStandIn localPlayer;
+  private PlayerInfoStandIn[] tabList;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    BenchmarkFixtures.install();
+    localPlayer = new PlayerInfoStandIn(new GameProfileStandIn(BenchmarkFixtures.LOCAL_UUID, "local"), 0, null);
+    tabList = new PlayerInfoStandIn[TAB_LIST_SIZE];
+    tabList[0] = localPlayer;
+    for (int i = 1; i < TAB_LIST_SIZE; i++) {
+      tabList[i] = new PlayerInfoStandIn(new GameProfileStandIn(UUID.randomUUID(), "player" + i), i, null);
+    }
+    // The first lookup decodes and registers the selected cape, as on a client's first frame.
+    if (LauncherCapeRuntime.tryGetCapeTextureForLocalPlayer(localPlayer) == null) {
+      throw new IllegalStateException("cape texture was not registered");
+    }
+  }
+
+  @Benchmark
+  public Object textureForLocalPlayer() {
+    return LauncherCapeRuntime.tryGetCapeTextureForLocalPlayer(localPlayer);
+  }
+
+  @Benchmark
+  public Object textureIdForLocalPlayer() {
+    return LauncherCapeRuntime.tryGetCapeTextureIdForLocalPlayer(localPlayer);
+  }
+
+  // One frame of tab-list rendering through the mixin entry point: every entry asks, the local
+  // one gets its selection and the rest go through the (empty) player cape table.
+  @Benchmark
+  public void textureForTabList(Blackhole bh) {
+    for (PlayerInfoStandIn entry : tabList) {
+      bh.consume(LauncherCapeRuntime.tryGetCapeTextureForPlayer(entry));
+    }
+  }
+
+  @Benchmark
+  public UUID profileUuidCached() {
+    return LauncherCapeRuntime.profileUuidOf(localPlayer);
+  }
+
+  // The reflective scan the cached extractors replace; this is the cold/first-hit cost.
+  @Benchmark
+  public UUID extractUuidScan() {
+    return LauncherCapeRuntime.scanProfileUuid(localPlayer);
+  }
+}
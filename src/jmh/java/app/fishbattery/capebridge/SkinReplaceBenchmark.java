@@ -0,0 +1,71 @@
+package app.fishbattery.capebridge;
+
+import app.fishbattery.capebridge.BenchmarkFixtures.ModelStandIn;
+import app.fishbattery.capebridge.BenchmarkFixtures.PlayerSkinStandIn;
+import app.fishbattery.capebridge.BenchmarkFixtures.SkinTexturesStandIn;
+import app.fishbattery.capebridge.BenchmarkFixtures.StandInIdentifier;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// tryReplaceCapeOnSkin through the skin-record backend, bound to each stand-in record layout in
+// turn. "steady" feeds the same skin every call (what getSkin returns frame to frame); "fresh"
+// hands in a new skin object each time, i.e. the memo-miss rebuild cost.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SkinReplaceBenchmark {
+  private final StandInIdentifier body = new StandInIdentifier("minecraft", "skins/steve");
+  private final StandInIdentifier vanillaCape = new StandInIdentifier("minecraft", "capes/vanilla");
+  private final StandInIdentifier launcherCape = new StandInIdentifier("fishbattery", "launcher_cape/bench");
+
+  @Param({ "playerSkin", "skinTextures" })
+  public String layout;
+
+  private Supplier<Object> newSkin;
+  private Object skin;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    BenchmarkFixtures.install();
+    final Class<?> skinClass;
+    if ("playerSkin".equals(layout)) {
+      skinClass = PlayerSkinStandIn.class;
+      newSkin = () -> new PlayerSkinStandIn(body, vanillaCape, vanillaCape, ModelStandIn.WIDE, true);
+    } else {
+      skinClass = SkinTexturesStandIn.class;
+      newSkin = () -> new SkinTexturesStandIn(body, "https://textures.example/steve", vanillaCape, vanillaCape, ModelStandIn.WIDE, true);
+    }
+    final CapeTextureBackend backend = CapeTextureBackends.skinRecord(StandInIdentifier.class, skinClass);
+    if (backend == null) throw new IllegalStateException("no skin-record backend for " + skinClass.getName());
+    LauncherCapeRuntime.useBackend(backend);
+    skin = newSkin.get();
+    if (LauncherCapeRuntime.tryReplaceCapeOnSkin(skin, launcherCape) == null) {
+      throw new IllegalStateException("skin replacement failed for " + skinClass.getName());
+    }
+  }
+
+  @Benchmark
+  public Object steady() {
+    return LauncherCapeRuntime.tryReplaceCapeOnSkin(skin, launcherCape);
+  }
+
+  @Benchmark
+  public Object fresh() {
+    return LauncherCapeRuntime.tryReplaceCapeOnSkin(newSkin.get(), launcherCape);
+  }
+}